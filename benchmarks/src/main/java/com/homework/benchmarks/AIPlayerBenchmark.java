@@ -0,0 +1,59 @@
+package com.homework.benchmarks;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for each algorithm to choose a move on a board where both players have made a couple of moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIPlayerBenchmark {
+    // Searching to the end of the game is only practical on the default board
+    private static final int LARGE_BOARD_SEARCH_DEPTH = 2;
+
+    @Param({"3", "5", "10", "50", "100"})
+    int boardSize;
+
+    // PERFECT reads the tablebase on the default board and falls back to minimax on larger ones, where no tablebase is
+    // generated. MCTS is measured by MctsBenchmark.
+    @Param({"RANDOM", "GREEDY", "EVIL", "MINIMAX", "PERFECT"})
+    AIPlayer.Algorithm algorithm;
+
+    private Board board;
+    private AIPlayer player;
+
+    @Setup
+    public void setup() {
+        board = Boards.withMoves(boardSize, 4, 42);
+        int searchDepth = boardSize == 3 ? AIPlayer.DEFAULT_SEARCH_DEPTH : LARGE_BOARD_SEARCH_DEPTH;
+        player = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", algorithm, searchDepth);
+        player.setSeed(1);
+        // Solve the tablebase now rather than in the first measured call
+        player.getNextMove(board);
+    }
+
+    @Benchmark
+    public int getNextMove() {
+        // Start every search from an empty transposition table rather than replaying the previous one
+        player.newGame();
+        return player.getNextMove(board);
+    }
+}
@@ -0,0 +1,89 @@
+package com.homework.benchmarks;
+
+import com.homework.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the Board operations every game and search is built from. Each benchmark runs against a board that
+ * is half full, so lookups hit a mix of free and claimed cells.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"3", "5", "10", "50", "100"})
+    int boardSize;
+
+    private Board board;
+    private Board.PlayerId nextPlayer;
+
+    // Free positions to move to and every position on the board to look up, visited round robin
+    private int[] freePositions;
+    private int[] allPositions;
+    private int nextFree = 0;
+    private int nextLookup = 0;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        board = Boards.halfFull(boardSize, 42);
+        nextPlayer = board.getMoveCount() % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO;
+
+        int cells = boardSize * boardSize;
+        freePositions = new int[cells - board.getMoveCount()];
+        allPositions = new int[cells];
+        int free = 0;
+        for (int position = 1; position <= cells; position++) {
+            allPositions[position - 1] = position;
+            if (board.isValidMove(position)) freePositions[free++] = position;
+        }
+        Boards.shuffle(allPositions, 7);
+    }
+
+    /**
+     * Board.move can only be measured together with unmove, since a board fills up after N^2 moves.
+     */
+    @Benchmark
+    public int moveAndUnmove() {
+        int position = freePositions[nextFree];
+        if (++nextFree == freePositions.length) nextFree = 0;
+        board.move(position, nextPlayer);
+        return board.unmove();
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return board.isValidMove(nextLookup());
+    }
+
+    @Benchmark
+    public Board.Cell getCell() {
+        return board.getCell(nextLookup());
+    }
+
+    @Benchmark
+    public Board.PlayerId getCellOwner() {
+        return board.getCellOwner(nextLookup());
+    }
+
+    private int nextLookup() {
+        int position = allPositions[nextLookup];
+        if (++nextLookup == allPositions.length) nextLookup = 0;
+        return position;
+    }
+}
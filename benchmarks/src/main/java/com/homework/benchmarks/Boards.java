@@ -0,0 +1,54 @@
+package com.homework.benchmarks;
+
+import com.homework.Board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Board fixtures shared by the benchmarks.
+ */
+final class Boards {
+    private Boards() {
+    }
+
+    /**
+     * Build a board with half its cells claimed by alternating players at random, without ending the game.
+     */
+    static Board halfFull(int boardSize, long seed) {
+        return withMoves(boardSize, boardSize * boardSize / 2, seed);
+    }
+
+    /**
+     * Build a board with the given number of cells claimed by alternating players at random, without ending the game.
+     */
+    static Board withMoves(int boardSize, int moves, long seed) {
+        Board board = new Board(boardSize);
+        int[] positions = new int[boardSize * boardSize];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i + 1;
+        }
+        shuffle(positions, seed);
+
+        Board.PlayerId player = Board.PlayerId.PLAYER_ONE;
+        for (int i = 0; i < positions.length && board.getMoveCount() < moves; i++) {
+            board.move(positions[i], player);
+            if (board.isBoardWon()) {
+                // Skip moves that would end the game so every benchmark sees a game in progress
+                board.unmove();
+            } else {
+                player = player == Board.PlayerId.PLAYER_ONE ? Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+            }
+        }
+        return board;
+    }
+
+    static void shuffle(int[] values, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
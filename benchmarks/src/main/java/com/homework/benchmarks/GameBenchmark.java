@@ -0,0 +1,54 @@
+package com.homework.benchmarks;
+
+import com.homework.Board;
+import com.homework.Player;
+import com.homework.impl.AIPlayer;
+import com.homework.sim.GameResult;
+import com.homework.sim.GameRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a complete headless game between two RANDOM players, including creating the board. This is the unit of work
+ * the tournament simulations repeat millions of times.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    @Param({"3", "5", "10", "50", "100"})
+    int boardSize;
+
+    private List<Player> players;
+    private final GameRunner runner = new GameRunner();
+
+    @Setup
+    public void setup() {
+        AIPlayer playerOne = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.RANDOM);
+        AIPlayer playerTwo = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.RANDOM);
+        playerOne.setSeed(1);
+        playerTwo.setSeed(2);
+        players = Arrays.<Player>asList(playerOne, playerTwo);
+    }
+
+    @Benchmark
+    public GameResult randomGame() {
+        return runner.run(players, new Board(boardSize));
+    }
+}
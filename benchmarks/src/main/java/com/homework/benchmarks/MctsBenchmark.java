@@ -0,0 +1,64 @@
+package com.homework.benchmarks;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCTS playout throughput by board size and thread count. The playouts counter is reported as playouts per second
+ * alongside the moves per second of the benchmark itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MctsBenchmark {
+    private static final int PLAYOUTS_PER_MOVE = 10000;
+
+    @Param({"3", "10", "19"})
+    int boardSize;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    private Board board;
+    private AIPlayer player;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Playouts {
+        public long playouts;
+    }
+
+    @Setup
+    public void setup() {
+        // Five in a row on the larger boards, as in Gomoku
+        board = new Board(boardSize, Math.min(boardSize, 5));
+        player = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MCTS);
+        player.setPlayouts(PLAYOUTS_PER_MOVE);
+        player.setSearchThreads(threads);
+        player.setSeed(1);
+    }
+
+    @Benchmark
+    public int getNextMove(Playouts counters) {
+        int move = player.getNextMove(board);
+        counters.playouts += player.getLastPlayouts();
+        return move;
+    }
+}
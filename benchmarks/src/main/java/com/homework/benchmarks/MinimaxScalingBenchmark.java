@@ -0,0 +1,66 @@
+package com.homework.benchmarks;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed depth MINIMAX searches per second by number of search threads, to report how well splitting the root scales.
+ * The nodes counter is reported as nodes searched per second alongside. Nodes per second grow with threads faster
+ * than moves per second do, since parallel searches repeat some of each other's work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinimaxScalingBenchmark {
+    private static final int SEARCH_DEPTH = 6;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int threads;
+
+    private Board board;
+    private AIPlayer player;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setup() {
+        // A 6x6 board won by four in a row, a few moves in
+        board = new Board(6, 6, 4);
+        int[] opening = {15, 22, 16, 21, 9};
+        for (int i = 0; i < opening.length; i++) {
+            board.move(opening[i], i % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO);
+        }
+        player = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MINIMAX, SEARCH_DEPTH);
+        player.setSearchThreads(threads);
+    }
+
+    @Benchmark
+    public int getNextMove(Nodes counters) {
+        // Start every search from an empty transposition table rather than replaying the previous one
+        player.newGame();
+        int move = player.getNextMove(board);
+        counters.nodes += player.getNodesSearched();
+        return move;
+    }
+}
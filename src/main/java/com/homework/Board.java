@@ -1,10 +1,10 @@
 package com.homework;
 
-import java.util.Collections;
+import java.util.Arrays;
 
 /**
  * Class to track the state of the TicTacToe board.
- * Cells are numbered top to bottom, left to right on a 2-D NxN board:
+ * Cells are numbered top to bottom, left to right on a 2-D board of rows x cols cells:
  * E.g. 1 2 3
  *      4 5 6
  *      7 8 9
@@ -14,28 +14,60 @@ public class Board {
     // an N x N board
     private static final int DEFAULT_SIZE = 3;
 
-    private int boardSize = DEFAULT_SIZE;
+    // Number of bits held by each word of a bitboard
+    private static final int WORD_BITS = 64;
 
-    // Track the current board state, use a custom Class instead of just storing IDs in case we want to later update
-    // cell-specific behaviors, e.g. display properties or metadata.
-    private Cell[][] boardState;
+    private int rows = DEFAULT_SIZE;
+    private int cols = DEFAULT_SIZE;
+
+    // Number of marks in an unbroken horizontal, vertical or diagonal line needed to win
+    private int winLength = DEFAULT_SIZE;
+
+    // Row and column steps for the four directions a winning line can run in: across, down, and both diagonals
+    private static final int[] LINE_ROW_STEPS = {0, 1, 1, 1};
+    private static final int[] LINE_COL_STEPS = {1, 0, 1, -1};
+
+    private static final BoardListener[] NO_LISTENERS = new BoardListener[0];
+
+    /**
+     * Track the current board state as one bitmask per player. Cell N (1-indexed) maps to bit (N - 1), so a board of
+     * up to 64 cells fits in a single long and larger boards spill into consecutive words. This keeps the cell state
+     * in a flat array of primitive words, e.g. about 250KB for a 1000x1000 board, instead of one Cell object per cell,
+     * and lets us scan it a word at a time and test occupancy with a mask rather than a pointer chase. The whole board
+     * takes more: moveHistory, freeCells and freeCellIndex below hold an int per cell each, so a 1000x1000 board takes
+     * about 12MB in all.
+     */
+    private long[] playerOneCells;
+    private long[] playerTwoCells;
+
+    /**
+     * For square boards won by a full line that fit in a single word we precompute one mask per winning line (rows,
+     * then columns, then the two diagonals) so that a win check is a single AND and compare. Null for other boards,
+     * which fall back to the running line totals below or to counting runs.
+     */
+    private long[] winLineMasks;
 
     /**
      * We can determine whether a given move is a winning move in constant time by treating each X or O as a +1 or -1
      * and checking whether the total for a row, column, or diagonal is equal to the board size. This approach is
      * useful since it also allows us to efficiently implement strategies for determining the optimal next move.
      * <p>
-     * We can store 2*boardSize + 2 sums:
+     * We can store rows + cols + 2 sums:
      * 1) Net score per each row
      * 2) Net score per each col
      * 3) Net score for diagonal top left to bottom right
      * 4) Net score for diagonal bottom left to top right
+     * The main diagonals only exist on square boards, so both diagonal totals stay 0 on rectangular ones.
      */
     private int[] rowTotals;
     private int[] colTotals;
     private int topToBottomDiagTotal = 0;
     private int bottomToTopDiagTotal = 0;
 
+    // Free cells ranked by their line totals. Built the first time a ranking is asked for, then brought up to date
+    // lazily by later queries.
+    private ThreatIndex threatIndex = null;
+
     // Track the last move made to ensure that moves trade back and forth
     private PlayerId lastMove = null;
 
@@ -44,38 +76,162 @@ public class Board {
     // Track the number of moves made to check for a draw condition
     private int moveCounter = 0;
 
+    // Positions claimed so far, in order, so that moves can be undone without copying the board
+    private int[] moveHistory;
+
+    /**
+     * Set of free positions, kept as a dense array so that a uniformly random free cell can be picked in O(1).
+     * freeCells[0, freeCellCount) holds the free positions in no particular order and freeCellIndex maps a free
+     * position back to its slot. Claiming a cell swaps it with the last free one and shrinks the set, leaving the
+     * claimed position parked just past the end with its old slot still recorded, which is exactly what unmove needs
+     * to swap it back.
+     */
+    private int[] freeCells;
+    private int[] freeCellIndex;
+    private int freeCellCount;
+
     /**
-     * Create a new boardSize x boardSize TicTacToe board
+     * Zobrist hash of the cells claimed so far: the XOR of one pseudo-random key per (position, player) pair. It is
+     * updated incrementally by move and unmove, so positions reached through different move orders hash the same.
+     * <p>
+     * We keep one hash per board symmetry, each one hashing the board as it would look after applying that symmetry.
+     * The smallest of them identifies the position's canonical form, which all symmetric variants share. Square boards
+     * have 8 symmetries, rectangular ones only 4. Hashes of symmetries the board does not have are left unused.
+     */
+    private long[] symmetricHashes = new long[Symmetry.COUNT];
+    private Symmetry[] symmetries;
+
+    /**
+     * Listeners notified of each move. The array is replaced rather than modified when listeners come and go, so move
+     * only has to check its length when no one is listening.
+     */
+    private BoardListener[] listeners = NO_LISTENERS;
+    // Set while a search makes and unmakes moves that listeners must not see
+    private boolean listenersMuted;
+
+    /**
+     * The most recent snapshot, returned again until the board changes. Snapshots share playerOneCells and
+     * playerTwoCells while cellsShared is set, and the first sharedMoves entries of moveHistory, so the board copies
+     * those arrays before changing a shared part of them. Searches that make and unmake many moves after a snapshot
+     * pay for one copy of the bitboards and at most one of the history.
+     */
+    private BoardSnapshot snapshot = null;
+    private boolean cellsShared = false;
+    private int sharedMoves = 0;
+
+    /**
+     * Create a new boardSize x boardSize TicTacToe board, won by claiming a full row, column or main diagonal
      *
      * @param boardSize The number of rows and columns to have in the board. Must be > 1.
      * @throws IllegalArgumentException if boardSize < 1
      */
     public Board(int boardSize) {
-        if (boardSize <= 1) throw new IllegalArgumentException("Board must have at least 1 cell.");
-        this.boardSize = boardSize;
-
-        boardState = new Cell[boardSize][boardSize];
-        rowTotals = new int[boardSize];
-        colTotals = new int[boardSize];
-
-        // Initialize the board
-        for (int i = 0; i < boardSize; i++) {
-            rowTotals[i] = 0;
-            colTotals[i] = 0;
-            for (int j = 0; j< boardSize; j++) {
-                boardState[i][j] = new Cell();
+        this(boardSize, boardSize, boardSize);
+    }
+
+    /**
+     * Create a new boardSize x boardSize board won by the first player to claim winLength cells in an unbroken
+     * horizontal, vertical or diagonal line anywhere on the board, as in Gomoku and other (m,n,k) games.
+     *
+     * @param boardSize The number of rows and columns to have in the board. Must be > 1.
+     * @param winLength The length of line needed to win, from 1 to boardSize
+     * @throws IllegalArgumentException if boardSize < 1 or winLength is out of range
+     */
+    public Board(int boardSize, int winLength) {
+        this(boardSize, boardSize, winLength);
+    }
+
+    /**
+     * Create a new rows x cols board, e.g. 6x7, won by the first player to claim winLength cells in an unbroken
+     * horizontal, vertical or diagonal line. A square board with winLength equal to its size is classic TicTacToe, won
+     * by a full row, column or main diagonal.
+     *
+     * @param rows      The number of rows to have in the board. Must be > 0.
+     * @param cols      The number of columns to have in the board. Must be > 0.
+     * @param winLength The length of line needed to win, from 1 to the longer side of the board
+     * @throws IllegalArgumentException if the board has fewer than 2 cells or winLength is out of range
+     */
+    public Board(int rows, int cols, int winLength) {
+        if (rows < 1 || cols < 1 || rows * cols <= 1) {
+            throw new IllegalArgumentException("Board must have at least 1 cell.");
+        }
+        if (winLength < 1 || winLength > Math.max(rows, cols)) {
+            throw new IllegalArgumentException("Win length must be between 1 and the longer side of the board. " +
+                    "Board size: " + rows + "x" + cols + "; Win length: " + winLength);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+
+        int numWords = (rows * cols + WORD_BITS - 1) / WORD_BITS;
+        playerOneCells = new long[numWords];
+        playerTwoCells = new long[numWords];
+        rowTotals = new int[rows];
+        colTotals = new int[cols];
+        moveHistory = new int[rows * cols];
+        symmetries = Symmetry.forBoard(rows, cols);
+
+        freeCellCount = rows * cols;
+        freeCells = new int[freeCellCount];
+        freeCellIndex = new int[freeCellCount + 1];
+        for (int i = 0; i < freeCellCount; i++) {
+            freeCells[i] = i + 1;
+            freeCellIndex[i + 1] = i;
+        }
+
+        if (numWords == 1 && winsByFullLine()) {
+            winLineMasks = buildWinLineMasks(rows);
+        }
+    }
+
+    /**
+     * Create an independent copy of a board by replaying its moves in order, so that the copy can be searched on
+     * another thread. The copy's move history, free cell order and hashes match the original's exactly. Listeners are
+     * not copied.
+     *
+     * @param other The board to copy
+     */
+    public Board(Board other) {
+        this(other.rows, other.cols, other.winLength);
+        for (int i = 0; i < other.moveCounter; i++) {
+            int movePosition = other.moveHistory[i];
+            move(movePosition, other.getCellOwner(movePosition));
+        }
+    }
+
+    /**
+     * Precompute the masks of every full row, column, and main diagonal for a board that fits in a single word.
+     * Layout is rows [0, boardSize), columns [boardSize, 2 * boardSize), then the top-to-bottom and bottom-to-top
+     * diagonals.
+     */
+    private static long[] buildWinLineMasks(int boardSize) {
+        long[] masks = new long[2 * boardSize + 2];
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                long bit = 1L << (row * boardSize + col);
+                masks[row] |= bit;
+                masks[boardSize + col] |= bit;
+                if (row == col) masks[2 * boardSize] |= bit;
+                if (row + col == boardSize - 1) masks[2 * boardSize + 1] |= bit;
             }
         }
+        return masks;
     }
 
     public Board() {
         this(DEFAULT_SIZE);
     }
 
+    /**
+     * @return The live row totals, which change as moves are made. Use snapshot to read the board from another thread.
+     */
     public int[] getRowTotals() {
         return rowTotals;
     }
 
+    /**
+     * @return The live column totals, which change as moves are made
+     */
     public int[] getColTotals() {
         return colTotals;
     }
@@ -88,8 +244,87 @@ public class Board {
         return bottomToTopDiagTotal;
     }
 
+    /**
+     * @return The number of rows and columns of a square board
+     * @throws IllegalStateException If the board is not square. Use getRows and getCols instead.
+     */
     public int getBoardSize() {
-        return boardSize;
+        if (!isSquare()) {
+            throw new IllegalStateException("A " + rows + "x" + cols + " board has no single size.");
+        }
+        return rows;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return The total number of cells, which is also the highest move position
+     */
+    public int getCellCount() {
+        return rows * cols;
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * @return The sum of the totals of the row, column and any main diagonals through the cell
+     */
+    public int getCombinedLineTotal(int row, int col) {
+        int total = rowTotals[row] + colTotals[col];
+        if (onTopToBottomDiag(row, col)) total += topToBottomDiagTotal;
+        if (onBottomToTopDiag(row, col)) total += bottomToTopDiagTotal;
+        return total;
+    }
+
+    /**
+     * @return The largest total of the row, column and any main diagonals through the cell
+     */
+    public int getMaxLineTotal(int row, int col) {
+        int total = Math.max(rowTotals[row], colTotals[col]);
+        if (onTopToBottomDiag(row, col)) total = Math.max(total, topToBottomDiagTotal);
+        if (onBottomToTopDiag(row, col)) total = Math.max(total, bottomToTopDiagTotal);
+        return total;
+    }
+
+    /**
+     * Find the free cell whose lines have the lowest combined total, i.e. the cell where player two's marks
+     * outnumber player one's the most. The ranking is maintained incrementally, so after the first call this is O(1).
+     *
+     * @return The position of the cell, the lowest such position if several cells tie
+     * @throws IllegalStateException If no free cells remain
+     */
+    public int getFreeCellWithLowestCombinedTotal() {
+        if (!validMovesRemain()) throw new IllegalStateException("No free cells remain.");
+        return threatIndex().lowestCombinedTotalCell();
+    }
+
+    /**
+     * Find the free cell on the line where player one's marks outnumber player two's the most. The ranking is
+     * maintained incrementally, so after the first call this is O(1).
+     *
+     * @return The position of the cell, the lowest such position if several cells tie
+     * @throws IllegalStateException If no free cells remain
+     */
+    public int getFreeCellWithHighestMaxTotal() {
+        if (!validMovesRemain()) throw new IllegalStateException("No free cells remain.");
+        return threatIndex().highestMaxTotalCell();
+    }
+
+    private ThreatIndex threatIndex() {
+        if (threatIndex == null) threatIndex = new ThreatIndex(this);
+        return threatIndex;
     }
 
     /**
@@ -98,7 +333,90 @@ public class Board {
      * @return True if at least one square remains open on the board
      */
     public boolean validMovesRemain() {
-        return moveCounter < (boardSize * boardSize);
+        return moveCounter < (rows * cols);
+    }
+
+    /**
+     * @return The number of moves made so far
+     */
+    public int getMoveCount() {
+        return moveCounter;
+    }
+
+    /**
+     * @param index The index of the move, counting from 0 for the first move of the game
+     * @return The position claimed by that move
+     * @throws IllegalArgumentException If fewer than index + 1 moves have been made
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCounter) {
+            throw new IllegalArgumentException("Move " + index + " has not been made. Moves made: " + moveCounter);
+        }
+        return moveHistory[index];
+    }
+
+    /**
+     * @return The Zobrist hash of the current cell ownership. Equal positions have equal hashes regardless of the
+     *         order the moves were played in.
+     */
+    public long getZobristHash() {
+        return symmetricHashes[Symmetry.IDENTITY.ordinal()];
+    }
+
+    /**
+     * Find the symmetry that maps this board to its canonical form: the variant, out of all the board's rotations and
+     * reflections, with the smallest hash. Symmetric boards share a canonical form, so results keyed on it can be
+     * shared between them. A move chosen on the canonical board maps back to this board with the inverse symmetry.
+     *
+     * @return The symmetry to apply to this board's positions to get the canonical board
+     */
+    public Symmetry getCanonicalSymmetry() {
+        Symmetry best = Symmetry.IDENTITY;
+        for (Symmetry symmetry : symmetries) {
+            if (symmetricHashes[symmetry.ordinal()] < symmetricHashes[best.ordinal()]) best = symmetry;
+        }
+        return best;
+    }
+
+    /**
+     * @return The hash of the canonical form of this board, equal for all boards that are rotations or reflections of
+     *         each other
+     */
+    public long getCanonicalHash() {
+        return symmetricHashes[getCanonicalSymmetry().ordinal()];
+    }
+
+    /**
+     * @return True if applying the symmetry leaves the board unchanged. Always false for a symmetry that does not fit
+     *         the board's shape, such as a quarter turn of a rectangular board.
+     */
+    public boolean isSymmetricUnder(Symmetry symmetry) {
+        return symmetry.fitsBoard(rows, cols) &&
+                symmetricHashes[symmetry.ordinal()] == symmetricHashes[Symmetry.IDENTITY.ordinal()];
+    }
+
+    /**
+     * @return The number of unclaimed cells
+     */
+    public int getFreeCellCount() {
+        return freeCellCount;
+    }
+
+    /**
+     * Look up a free cell by index into the set of free cells. The order of the set is arbitrary and changes as moves
+     * are made, but indexing it with a uniformly random number in [0, getFreeCellCount()) picks a uniformly random
+     * free cell without scanning the board.
+     *
+     * @param index Index into the set of free cells, from 0 to getFreeCellCount() - 1
+     * @return The position of the free cell
+     * @throws IllegalArgumentException If the index is out of range
+     */
+    public int getFreeCell(int index) {
+        if (index < 0 || index >= freeCellCount) {
+            throw new IllegalArgumentException("Free cell index " + index + " out of range. Free cells: " +
+                    freeCellCount);
+        }
+        return freeCells[index];
     }
 
     /**
@@ -116,21 +434,45 @@ public class Board {
      * @return True if the move is valid
      */
     public boolean isValidMove(int movePosition) {
-        return (movePosition >= 1) && (movePosition <= boardSize * boardSize) &&
-                (getCell(movePosition).isFree());
+        return (movePosition >= 1) && (movePosition <= rows * cols) && isFree(movePosition);
     }
 
     /**
-     * Handle the translation of a position input into a row/col representation and return the resolved cell.
+     * Look up a cell by position. The returned cell is a lightweight view onto this board, so it always reflects the
+     * current owner of the position.  Like the board itself, it must only be read on the thread playing the game. Other
+     * threads should read a snapshot instead.
+     *
+     * Each call allocates a new view, so this is kept for existing callers only. Code that scans the board, such as the
+     * renderer and the AI players, should use getCellOwner or isValidMove, which read the bitboards directly.
      *
      * @param movePosition The number of the cell to claim counting from top to bottom
-     * @return
+     * @return A view of the cell at the given position
      */
     public Cell getCell(int movePosition) {
-        int zeroIdx = movePosition - 1;
-        int row = zeroIdx / boardSize;
-        int col = zeroIdx % boardSize;
-        return boardState[row][col];
+        return new Cell(movePosition);
+    }
+
+    /**
+     * Look up the owner of a cell directly from the bitboards without creating a Cell view.
+     *
+     * @param movePosition The number of the cell counting from top to bottom, left to right. Must be on the board.
+     * @return The id of the player occupying the cell, or null if the cell is free
+     */
+    public PlayerId getCellOwner(int movePosition) {
+        int word = (movePosition - 1) / WORD_BITS;
+        long bit = 1L << (movePosition - 1);
+        if ((playerOneCells[word] & bit) != 0) return PlayerId.PLAYER_ONE;
+        if ((playerTwoCells[word] & bit) != 0) return PlayerId.PLAYER_TWO;
+        return null;
+    }
+
+    private boolean isFree(int movePosition) {
+        int word = (movePosition - 1) / WORD_BITS;
+        return ((playerOneCells[word] | playerTwoCells[word]) & (1L << (movePosition - 1))) == 0;
+    }
+
+    private long[] cellsOf(PlayerId playerId) {
+        return playerId == PlayerId.PLAYER_ONE ? playerOneCells : playerTwoCells;
     }
 
     /**
@@ -138,15 +480,16 @@ public class Board {
      *
      * @param row The row of the board
      * @param col The col of the board
-     * @return The position from 1 to (boardSize * boardSize) to move
+     * @return The position from 1 to (rows * cols) to move
      */
     public int getMovePosition(int row, int col) {
-        return row * boardSize + col + 1; // 1 index vs 0 index
+        return row * cols + col + 1; // 1 index vs 0 index
     }
 
     /**
      * Claim a cell on the board for a given player.
-     * This method should be called with alternating players and the caller should then check for victory condition.
+     * This method should be called with alternating players and the caller should then check for victory condition,
+     * or register a BoardListener to be told when the game ends.
      *
      * @param movePosition The number of the cell to claim counting from top top bottom, left to right on a 2-D board,
      * @param playerId     The id of the player claiming the cell
@@ -170,110 +513,411 @@ public class Board {
             return false;
         }
 
-        // Update the board state
-        boolean wasUpdated = getCell(movePosition).setPlayerId(playerId);
+        // Update the board state. isValidMove has already guaranteed that the cell is free.
+        if (cellsShared) unshare();
+        cellsOf(playerId)[(movePosition - 1) / WORD_BITS] |= 1L << (movePosition - 1);
 
         // Update score counters
-        if (wasUpdated) {
-            lastMove = playerId;
-            moveCounter++;
+        lastMove = playerId;
+        if (moveCounter < sharedMoves) {
+            // Replacing a move that was taken back, which a snapshot may still show
+            moveHistory = moveHistory.clone();
+            sharedMoves = 0;
+        }
+        moveHistory[moveCounter++] = movePosition;
+        updateHashes(movePosition, playerId);
+        claimFreeCell(movePosition);
+
+        int row = (movePosition-1) / cols;
+        int col = (movePosition-1) % cols;
+
+        updateScore(playerId.getNumVal(), row, col);
+
+        if (moveWinsGame(playerId, row, col)) {
+            boardWon = true;
+        }
+
+        if (listeners.length != 0 && !listenersMuted) {
+            notifyListeners(movePosition, playerId, row, col);
+        }
+
+        return true;
+    }
+
+    /**
+     * Register a listener to be told about every move made from now on, and about the end of the game.
+     */
+    public void addListener(BoardListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener may not be null.");
+        }
+        BoardListener[] grown = new BoardListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, grown, 0, listeners.length);
+        grown[listeners.length] = listener;
+        listeners = grown;
+    }
+
+    /**
+     * Stop notifying a listener. Does nothing if it was not registered.
+     */
+    public void removeListener(BoardListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] != listener) continue;
+            if (listeners.length == 1) {
+                listeners = NO_LISTENERS;
+            } else {
+                BoardListener[] shrunk = new BoardListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, shrunk, 0, i);
+                System.arraycopy(listeners, i + 1, shrunk, i, listeners.length - i - 1);
+                listeners = shrunk;
+            }
+            return;
+        }
+    }
 
-            int row = (movePosition-1) / boardSize;
-            int col = (movePosition-1) % boardSize;
+    /**
+     * @return True if any listeners are registered, whether or not they are muted
+     */
+    public boolean hasListeners() {
+        return listeners.length != 0;
+    }
 
-            updateScore(playerId, row, col);
+    /**
+     * Stop or resume notifying listeners, e.g. while a search makes and unmakes moves on this board. Listeners are not
+     * told about moves made while muted, even once they are resumed.
+     * @param muted True to stop notifying listeners, false to resume
+     * @return Whether listeners were muted before, so that a caller can restore it
+     */
+    public boolean setListenersMuted(boolean muted) {
+        boolean wasMuted = listenersMuted;
+        listenersMuted = muted;
+        return wasMuted;
+    }
 
-            // TODO Instead of setting a boolean flag, we could call a callback to have this class notify a listener
-            if (moveWinsGame(row, col)) {
-                boardWon = true;
+    private void notifyListeners(int movePosition, PlayerId playerId, int row, int col) {
+        // Take a local reference in case a listener adds or removes listeners
+        BoardListener[] notified = listeners;
+        for (BoardListener listener : notified) {
+            listener.onMove(this, movePosition, playerId);
+        }
+        if (boardWon) {
+            int[] winningLine = winningLine(playerId, row, col);
+            for (BoardListener listener : notified) {
+                listener.onWin(this, playerId, winningLine);
+            }
+        } else if (freeCellCount == 0) {
+            for (BoardListener listener : notified) {
+                listener.onDraw(this);
             }
         }
+    }
+
+    /**
+     * Find the longest unbroken run of the player's cells through (row, col). Only called once per game, when it has
+     * been won and someone is listening.
+     * @return The positions of the run, in order along the line
+     */
+    private int[] winningLine(PlayerId playerId, int row, int col) {
+        long[] cells = cellsOf(playerId);
+        int[] best = null;
+        for (int direction = 0; direction < LINE_ROW_STEPS.length; direction++) {
+            int rowStep = LINE_ROW_STEPS[direction];
+            int colStep = LINE_COL_STEPS[direction];
+            // Walk back to the start of the run, then forward to its end
+            int r = row;
+            int c = col;
+            while (owns(cells, r - rowStep, c - colStep)) {
+                r -= rowStep;
+                c -= colStep;
+            }
+            int length = 1;
+            while (owns(cells, r + length * rowStep, c + length * colStep)) {
+                length++;
+            }
+            if (length < winLength || (best != null && length <= best.length)) continue;
 
-        return wasUpdated;
+            best = new int[length];
+            for (int i = 0; i < length; i++) {
+                best[i] = getMovePosition(r + i * rowStep, c + i * colStep);
+            }
+        }
+        return best;
+    }
+
+    private boolean owns(long[] cells, int row, int col) {
+        if (outOfBounds(row, col)) return false;
+        int bit = row * cols + col;
+        return (cells[bit / WORD_BITS] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Take an immutable snapshot of the board that other threads may read while this one carries on playing. Must be
+     * called from the thread that moves on the board. Taking a snapshot is O(1), and taking another before the board
+     * changes returns the same snapshot.
+     */
+    public BoardSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = new BoardSnapshot(rows, cols, winLength, playerOneCells, playerTwoCells, moveHistory,
+                    moveCounter, lastMove, boardWon, getCanonicalHash());
+            cellsShared = true;
+            sharedMoves = Math.max(sharedMoves, moveCounter);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copy the bitboards that snapshots share before the board changes. The move history is copied separately, and
+     * only when a move overwrites a shared entry after a shared move was taken back.
+     */
+    private void unshare() {
+        snapshot = null;
+        playerOneCells = playerOneCells.clone();
+        playerTwoCells = playerTwoCells.clone();
+        cellsShared = false;
+    }
+
+    /**
+     * Revert the most recent move, restoring the cell, the line totals, the last player to move and the won flag
+     * exactly as they were before it. Together with move this lets a search make and unmake moves on a single board
+     * without copying it.
+     *
+     * @return The position that was freed
+     * @throws IllegalStateException If no moves have been made
+     */
+    public int unmove() {
+        if (moveCounter == 0) {
+            throw new IllegalStateException("No moves to undo.");
+        }
+
+        if (cellsShared) unshare();
+        int movePosition = moveHistory[--moveCounter];
+        PlayerId playerId = lastMove;
+        cellsOf(playerId)[(movePosition - 1) / WORD_BITS] &= ~(1L << (movePosition - 1));
+        updateHashes(movePosition, playerId);
+        releaseFreeCell(movePosition);
+
+        updateScore(-playerId.getNumVal(), (movePosition-1) / cols, (movePosition-1) % cols);
+
+        // Moves are rejected once the board is won, so the board cannot have been won before the move being undone
+        boardWon = false;
+        lastMove = moveCounter > 0 ? getCellOwner(moveHistory[moveCounter - 1]) : null;
+        return movePosition;
+    }
+
+    /**
+     * Return the board to its state before the first move so that it can be reused for another game. Only the cells
+     * that were claimed are visited, so this is O(moves played) rather than O(cells), and it allocates nothing unless
+     * a snapshot still shares the bitboards. Afterwards the board, including its free cell order, is indistinguishable
+     * from a new one of the same shape. Listeners stay registered.
+     */
+    public void reset() {
+        if (cellsShared) {
+            // Snapshots keep the claimed cells, so start from empty bitboards rather than clearing theirs
+            snapshot = null;
+            playerOneCells = new long[playerOneCells.length];
+            playerTwoCells = new long[playerTwoCells.length];
+            cellsShared = false;
+        }
+
+        // Every claimed cell goes, so whole words and line totals can be cleared rather than undone move by move.
+        // Releasing free cells newest first puts each one back in its original slot.
+        for (int i = moveCounter - 1; i >= 0; i--) {
+            int movePosition = moveHistory[i];
+            int row = (movePosition - 1) / cols;
+            int col = (movePosition - 1) % cols;
+            playerOneCells[(movePosition - 1) / WORD_BITS] = 0;
+            playerTwoCells[(movePosition - 1) / WORD_BITS] = 0;
+            rowTotals[row] = 0;
+            colTotals[col] = 0;
+            releaseFreeCell(movePosition);
+            if (threatIndex != null) threatIndex.onCellChanged(row, col);
+        }
+        topToBottomDiagTotal = 0;
+        bottomToTopDiagTotal = 0;
+
+        // Snapshots may still share the old history, which move copies before overwriting, so sharedMoves is kept
+        moveCounter = 0;
+        Arrays.fill(symmetricHashes, 0L);
+        lastMove = null;
+        boardWon = false;
     }
 
     /**
      * Helper function to update scores for a given move. This function assumes that the move is valid.
-     * @param playerId The id of the player making the move
+     * @param delta The amount to add to each line through the cell: the player's numeric value when making a move,
+     *              or its negation when undoing one
      * @param row The move row
      * @param col The move column
      */
-    private void updateScore(PlayerId playerId, int row, int col) {
+    private void updateScore(int delta, int row, int col) {
         if (outOfBounds(row, col)) {
             throw new IllegalArgumentException("Please ensure row/col are within board boundaries. " +
-                    "Board size: " + boardSize + "; (Row, Col):(" + row + "," + col + ")");
+                    "Board size: " + rows + "x" + cols + "; (Row, Col):(" + row + "," + col + ")");
         }
-        if (playerId == null) throw new IllegalArgumentException("PlayerId may not be null.");
 
-        rowTotals[row] += playerId.getNumVal();
-        colTotals[col] += playerId.getNumVal();
+        rowTotals[row] += delta;
+        colTotals[col] += delta;
 
         // Bottom to top diagonal, e.g. (1,1), (2,2), (3,3)
         if (onTopToBottomDiag(row, col)) {
-            topToBottomDiagTotal += playerId.getNumVal();
+            topToBottomDiagTotal += delta;
         }
 
         // Top to bottom diagonal, e.g. (1,3) (2,2), (3,1)
         if (onBottomToTopDiag(row, col)) {
-            bottomToTopDiagTotal += playerId.getNumVal();
+            bottomToTopDiagTotal += delta;
+        }
+
+        if (threatIndex != null) {
+            threatIndex.onCellChanged(row, col);
         }
     }
 
+    // The main diagonals are only tracked on square boards
     public boolean onTopToBottomDiag(int row, int col) {
-        return row == col;
+        return rows == cols && row == col;
     }
 
     public boolean onBottomToTopDiag(int row, int col) {
-        return row + col == (boardSize - 1);
+        return rows == cols && row + col == (rows - 1);
+    }
+
+    /**
+     * @return True if the game is won by a full row, column or main diagonal rather than by a shorter run
+     */
+    private boolean winsByFullLine() {
+        return rows == cols && winLength == rows;
     }
 
     /**
      * Helper function to check whether the board has been won for a particular row or column (also checks diagonals).
+     * Only lines through the cell just claimed can have been completed by this move, so nothing else is checked.
+     * @param playerId The player who just moved
      * @param row The row to check
      * @param col The column to check
      * @return True if the board is won
      */
-    private boolean moveWinsGame(int row, int col) {
+    private boolean moveWinsGame(PlayerId playerId, int row, int col) {
         if (outOfBounds(row, col)) {
             throw new IllegalArgumentException("Please ensure row/col are within board boundaries. " +
-                    "Board size: " + boardSize + "; (Row, Col):(" + row + "," + col + ")");
+                    "Board size: " + rows + "x" + cols + "; (Row, Col):(" + row + "," + col + ")");
+        }
+
+        // A line shorter than the board can be completed anywhere, so count the run through the cell instead
+        if (!winsByFullLine()) {
+            return completesRun(playerId, row, col);
+        }
+
+        // Single-word boards can check every line through the cell against the mover's bitboard directly
+        if (winLineMasks != null) {
+            long cells = cellsOf(playerId)[0];
+            return lineComplete(cells, winLineMasks[row]) ||
+                    lineComplete(cells, winLineMasks[rows + col]) ||
+                    (onTopToBottomDiag(row, col) && lineComplete(cells, winLineMasks[2 * rows])) ||
+                    (onBottomToTopDiag(row, col) && lineComplete(cells, winLineMasks[2 * rows + 1]));
         }
 
-        // Check for victory condition. We know if the total is equal to boardSize or -boardSize game is won
+        // Check for victory condition. We know if the total is equal to winLength or -winLength game is won
         // We only check the absolute value because we know that if the game was won on this turn, the moving
         // player is the victor so we don't need to track the winning player.
         // TODO We could break this out into individual checks if we wanted to know how the game was won
-        return (Math.abs(rowTotals[row]) == boardSize) ||
-            (Math.abs(colTotals[col]) == boardSize) ||
-            (Math.abs(bottomToTopDiagTotal) == boardSize) ||
-            (Math.abs(topToBottomDiagTotal) == boardSize);
+        return (Math.abs(rowTotals[row]) == winLength) ||
+            (Math.abs(colTotals[col]) == winLength) ||
+            (Math.abs(bottomToTopDiagTotal) == winLength) ||
+            (Math.abs(topToBottomDiagTotal) == winLength);
+    }
+
+    /**
+     * Remove a position from the free set by swapping it with the last free position. The claimed position keeps its
+     * old slot in freeCellIndex so releaseFreeCell can restore the original order.
+     */
+    private void claimFreeCell(int movePosition) {
+        int slot = freeCellIndex[movePosition];
+        int last = freeCells[--freeCellCount];
+        freeCells[slot] = last;
+        freeCellIndex[last] = slot;
+        freeCells[freeCellCount] = movePosition;
+    }
+
+    /**
+     * Undo claimFreeCell for the most recently claimed position, which sits just past the end of the free set.
+     */
+    private void releaseFreeCell(int movePosition) {
+        int slot = freeCellIndex[movePosition];
+        int displaced = freeCells[slot];
+        freeCells[freeCellCount] = displaced;
+        freeCellIndex[displaced] = freeCellCount;
+        freeCells[slot] = movePosition;
+        freeCellCount++;
+    }
+
+    /**
+     * Toggle a player's ownership of a position in every symmetric hash. Since hashes are XORs this both adds and
+     * removes a claim.
+     */
+    private void updateHashes(int movePosition, PlayerId playerId) {
+        for (Symmetry symmetry : symmetries) {
+            int position = symmetry.apply(movePosition, rows, cols);
+            symmetricHashes[symmetry.ordinal()] ^= zobristKey(position, playerId);
+        }
+    }
+
+    /**
+     * Zobrist key for a player owning a position. Rather than storing a table of 2 * rows * cols random keys, each key is
+     * derived on demand by running the (position, player) index through the SplitMix64 finalizer, which gives well
+     * mixed, fixed keys for boards of any size at no memory cost.
+     */
+    static long zobristKey(int movePosition, PlayerId playerId) {
+        long z = (2L * movePosition + playerId.ordinal()) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Check whether the cell just claimed is part of an unbroken run of at least winLength of the player's cells in
+     * any of the four directions. Each direction looks at most winLength - 1 cells either side, so this is O(k).
+     */
+    private boolean completesRun(PlayerId playerId, int row, int col) {
+        long[] cells = cellsOf(playerId);
+        for (int direction = 0; direction < LINE_ROW_STEPS.length; direction++) {
+            int rowStep = LINE_ROW_STEPS[direction];
+            int colStep = LINE_COL_STEPS[direction];
+            int run = 1 + countRun(cells, row, col, rowStep, colStep) + countRun(cells, row, col, -rowStep, -colStep);
+            if (run >= winLength) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Count the player's cells in an unbroken line leading away from (row, col), not counting (row, col) itself and
+     * stopping once a win is guaranteed.
+     */
+    private int countRun(long[] cells, int row, int col, int rowStep, int colStep) {
+        int run = 0;
+        int r = row + rowStep;
+        int c = col + colStep;
+        while (run < winLength - 1 && !outOfBounds(r, c)) {
+            int bit = r * cols + c;
+            if ((cells[bit / WORD_BITS] & (1L << bit)) == 0) break;
+            run++;
+            r += rowStep;
+            c += colStep;
+        }
+        return run;
+    }
+
+    private static boolean lineComplete(long cells, long lineMask) {
+        return (cells & lineMask) == lineMask;
     }
 
     private boolean outOfBounds(int row, int col) {
-        return (row >= boardSize) || (row < 0) || (col >= boardSize) || (col < 0);
+        return (row >= rows) || (row < 0) || (col >= cols) || (col < 0);
     }
 
-    // Print the board, row by row
+    // Print the board to standard out in a single write. Use a BoardRenderer to draw boards repeatedly.
     public void showBoard() {
-        System.out.println("Game board: ");
-        /**
-         * Use 2 characters per cell plus one star on each side and an extra space, e.g.
-         *      *********
-         *      * X O X *
-         *      * X O X *
-         *      * O O X *
-         *      *********
-         */
-        String border = String.join("", Collections.nCopies(boardSize * 2 + 3, "*"));
-        System.out.println(border);
-        for (int i = 0; i < boardState.length; i++) {
-            System.out.print("*");
-            for (int j = 0; j < boardState.length; j++) {
-                System.out.print(" " + boardState[i][j].getSymbol());
-            }
-            System.out.println(" *");
-        }
-        System.out.println(border);
+        new BoardRenderer(System.out).render(this);
     }
 
     public enum PlayerId {
@@ -297,33 +941,31 @@ public class Board {
     }
 
     /**
-     * Simple wrapper for an individual cell of a TicTacToe board
+     * Simple view of an individual cell of a TicTacToe board. Ownership lives in the board's bitmasks, so a Cell
+     * holds only its position and reads through to the board.
      */
     public class Cell {
-        private PlayerId playerId = null;
+        private final int position;
+
+        Cell(int position) {
+            this.position = position;
+        }
+
+        public int getPosition() {
+            return position;
+        }
 
         public PlayerId getPlayerId() {
-            return playerId;
+            return getCellOwner(position);
         }
+
         public String getSymbol() {
             if (isFree()) return "-";
             else return getPlayerId().getSymbol();
         }
 
-        /**
-         * Update the player ID for this cell. This function only updates state if the cell is unoccupied
-         *
-         * @return True if cell was free and this was a valid move
-         * @oaram playerId The ID of the player attempting to claim this cell
-         */
-        boolean setPlayerId(PlayerId playerId) {
-            if (!isFree() || playerId == null) return false;
-            this.playerId = playerId;
-            return true;
-        }
-
         boolean isFree() {
-            return playerId == null;
+            return Board.this.isFree(position);
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.homework;
+
+/**
+ * Receives the events of a game as moves are made on a Board. Listeners are called synchronously on the thread making
+ * the move, after the board has been updated, so they see the board as it is after the move. They must not move on the
+ * board themselves.
+ *
+ * Only moves are reported. Moves taken back with unmove, as searches do when they try moves out, are not, so attach
+ * listeners to the board a game is played on rather than to boards being searched.
+ */
+public interface BoardListener {
+    /**
+     * Called after every move.
+     * @param b        The board the move was made on
+     * @param position The position claimed
+     * @param playerId The player who claimed it
+     */
+    void onMove(Board b, int position, Board.PlayerId playerId);
+
+    /**
+     * Called after onMove when the move wins the game.
+     * @param b            The board the game was won on
+     * @param winner       The player who won
+     * @param winningLine  The positions of the unbroken run of the winner's cells that the winning move completed, in
+     *                     order along the line. May be longer than the win length.
+     */
+    void onWin(Board b, Board.PlayerId winner, int[] winningLine);
+
+    /**
+     * Called after onMove when the move fills the last free cell without winning.
+     * @param b The board the game was drawn on
+     */
+    void onDraw(Board b);
+}
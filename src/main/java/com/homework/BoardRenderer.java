@@ -0,0 +1,195 @@
+package com.homework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Draws boards as text, e.g.
+ *      Game board:
+ *      *********
+ *      * X O X *
+ *      * X O - *
+ *      * O - X *
+ *      *********
+ *
+ * Each frame is built in a reusable buffer and written to the stream in a single write and flush, so drawing a board
+ * costs one system call however large it is and allocates nothing once the buffer has grown to fit the frame.
+ *
+ * In diff mode, a board with the same shape as the last one drawn is not drawn again. Instead, ANSI escape codes move
+ * the cursor up into the previous frame and overwrite just the cells that changed, which keeps a spectator stream of a
+ * large board to a few bytes per move. Diff mode assumes nothing else is printed between frames.
+ *
+ * A renderer is also a BoardListener that draws the board after every move, so it can be attached to a board directly.
+ *
+ * Renderers are not thread safe.
+ */
+public class BoardRenderer implements BoardListener {
+    private static final byte ESCAPE = 0x1B;
+    private static final byte FREE_SYMBOL = '-';
+    // The title and top border above the first row of cells
+    private static final int LINES_ABOVE_CELLS = 2;
+
+    private final OutputStream out;
+    private final boolean diff;
+
+    private byte[] buffer = new byte[256];
+    private int length = 0;
+
+    // The symbols of the last frame drawn, indexed by position - 1, or null before the first frame
+    private byte[] lastFrame = null;
+    private int lastRows = 0;
+    private int lastCols = 0;
+
+    /**
+     * Create a renderer that draws every board in full.
+     * @param out The stream to draw to
+     */
+    public BoardRenderer(OutputStream out) {
+        this(out, false);
+    }
+
+    /**
+     * @param out  The stream to draw to
+     * @param diff True to redraw only the cells that changed since the last frame, using ANSI escape codes
+     */
+    public BoardRenderer(OutputStream out, boolean diff) {
+        this.out = out;
+        this.diff = diff;
+    }
+
+    /**
+     * Draw the board and flush the stream.
+     * @throws UncheckedIOException if the stream can't be written to
+     */
+    public void render(Board b) {
+        int rows = b.getRows();
+        int cols = b.getCols();
+        length = 0;
+        if (diff && lastFrame != null && rows == lastRows && cols == lastCols) {
+            appendChanges(b);
+        } else {
+            appendFrame(b);
+        }
+
+        try {
+            out.write(buffer, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onMove(Board b, int position, Board.PlayerId playerId) {
+        render(b);
+    }
+
+    @Override
+    public void onWin(Board b, Board.PlayerId winner, int[] winningLine) {
+    }
+
+    @Override
+    public void onDraw(Board b) {
+    }
+
+    /**
+     * Forget the last frame, so the next board is drawn in full even in diff mode. Call this if anything else has been
+     * printed since the last frame.
+     */
+    public void reset() {
+        lastFrame = null;
+    }
+
+    private void appendFrame(Board b) {
+        int rows = b.getRows();
+        int cols = b.getCols();
+        if (lastFrame == null || lastFrame.length != rows * cols) lastFrame = new byte[rows * cols];
+        lastRows = rows;
+        lastCols = cols;
+
+        // 2 characters per cell plus one star on each side and an extra space
+        append("Game board: \n");
+        appendBorder(cols * 2 + 3);
+        for (int i = 0; i < rows; i++) {
+            append('*');
+            for (int j = 0; j < cols; j++) {
+                int position = b.getMovePosition(i, j);
+                byte symbol = symbolOf(b, position);
+                lastFrame[position - 1] = symbol;
+                append(' ');
+                append(symbol);
+            }
+            append(" *\n");
+        }
+        appendBorder(cols * 2 + 3);
+    }
+
+    private void appendChanges(Board b) {
+        int rows = b.getRows();
+        int cols = b.getCols();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int position = b.getMovePosition(i, j);
+                byte symbol = symbolOf(b, position);
+                if (lastFrame[position - 1] == symbol) continue;
+                lastFrame[position - 1] = symbol;
+
+                // The cursor rests at the start of the line below the frame. Move up to the cell's row and across to
+                // its column, overwrite the symbol and move back down.
+                int up = rows + 1 - i;
+                appendEscape(up, 'A');
+                appendEscape(2 * j + 3, 'G');
+                append(symbol);
+                appendEscape(up, 'B');
+                append('\r');
+            }
+        }
+    }
+
+    private static byte symbolOf(Board b, int position) {
+        Board.PlayerId owner = b.getCellOwner(position);
+        return owner == null ? FREE_SYMBOL : (byte) owner.getSymbol().charAt(0);
+    }
+
+    private void appendBorder(int width) {
+        for (int i = 0; i < width; i++) {
+            append('*');
+        }
+        append('\n');
+    }
+
+    /**
+     * Append a control sequence introducer, a number and a command, e.g. ESC[3A to move the cursor up 3 lines.
+     */
+    private void appendEscape(int count, char command) {
+        append(ESCAPE);
+        append('[');
+        appendNumber(count);
+        append(command);
+    }
+
+    private void appendNumber(int value) {
+        if (value >= 10) appendNumber(value / 10);
+        append((char) ('0' + value % 10));
+    }
+
+    private void append(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    private void append(char c) {
+        append((byte) c);
+    }
+
+    private void append(byte b) {
+        if (length == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length++] = b;
+    }
+}
@@ -0,0 +1,122 @@
+package com.homework;
+
+/**
+ * An immutable view of a Board as it was when the snapshot was taken, safe to read from any number of threads without
+ * locking while the game carries on. Take one with Board.snapshot on the thread playing the game, then hand it to
+ * spectators, analytics or an AI thinking in the background.
+ * <p>
+ * Taking a snapshot is O(1). The snapshot shares the board's bitboards and move history rather than copying them, and
+ * the board copies its own arrays before the next change that would touch a shared part. The cost of a snapshot is
+ * therefore one copy of the board's bitboards, a few words for most boards, paid by the next move, and a copy of the
+ * move history only if a shared move is taken back.
+ */
+public final class BoardSnapshot {
+    private static final int WORD_BITS = Long.SIZE;
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    // Shared with the board until the board next changes. Never modified once the snapshot has been taken.
+    private final long[] playerOneCells;
+    private final long[] playerTwoCells;
+    // Shared with the board, which only writes past moveCount while sharing it
+    private final int[] moveHistory;
+    private final int moveCount;
+    private final Board.PlayerId lastMove;
+    private final boolean boardWon;
+    private final long canonicalHash;
+
+    BoardSnapshot(int rows, int cols, int winLength, long[] playerOneCells, long[] playerTwoCells, int[] moveHistory,
+                  int moveCount, Board.PlayerId lastMove, boolean boardWon, long canonicalHash) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.playerOneCells = playerOneCells;
+        this.playerTwoCells = playerTwoCells;
+        this.moveHistory = moveHistory;
+        this.moveCount = moveCount;
+        this.lastMove = lastMove;
+        this.boardWon = boardWon;
+        this.canonicalHash = canonicalHash;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getCellCount() {
+        return rows * cols;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @param index The index of the move, counting from 0 for the first move of the game
+     * @return The position claimed by that move
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + moveCount);
+        }
+        return moveHistory[index];
+    }
+
+    /**
+     * @return The player who made the most recent move, or null if no moves had been made
+     */
+    public Board.PlayerId getLastMove() {
+        return lastMove;
+    }
+
+    public boolean isBoardWon() {
+        return boardWon;
+    }
+
+    public boolean validMovesRemain() {
+        return moveCount < rows * cols;
+    }
+
+    /**
+     * @return The hash shared by every position symmetric to this one, as Board.getCanonicalHash
+     */
+    public long getCanonicalHash() {
+        return canonicalHash;
+    }
+
+    /**
+     * @param movePosition The number of the cell counting from top to bottom, left to right. Must be on the board.
+     * @return The id of the player occupying the cell, or null if the cell was free
+     */
+    public Board.PlayerId getCellOwner(int movePosition) {
+        int word = (movePosition - 1) / WORD_BITS;
+        long bit = 1L << (movePosition - 1);
+        if ((playerOneCells[word] & bit) != 0) return Board.PlayerId.PLAYER_ONE;
+        if ((playerTwoCells[word] & bit) != 0) return Board.PlayerId.PLAYER_TWO;
+        return null;
+    }
+
+    public boolean isFree(int movePosition) {
+        return getCellOwner(movePosition) == null;
+    }
+
+    /**
+     * Rebuild a mutable board in the snapshot's position by replaying its moves, e.g. to search it on another thread.
+     */
+    public Board toBoard() {
+        Board b = new Board(rows, cols, winLength);
+        for (int i = 0; i < moveCount; i++) {
+            b.move(moveHistory[i], getCellOwner(moveHistory[i]));
+        }
+        return b;
+    }
+}
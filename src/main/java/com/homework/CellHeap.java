@@ -0,0 +1,113 @@
+package com.homework;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of board positions ordered by an integer key, breaking ties by the lower position. The
+ * index from position to heap slot lets a position's key be changed or the position removed in O(log n), and the heap
+ * is made of plain int arrays so updates never allocate.
+ */
+class CellHeap {
+    // Marks a position that is not in the heap
+    private static final int ABSENT = -1;
+
+    // heap[0, size) holds positions in heap order
+    private final int[] heap;
+    // slot[position] is the position's index into heap, or ABSENT
+    private final int[] slot;
+    // key[position] is the position's current key while it is in the heap
+    private final int[] key;
+    private int size = 0;
+
+    /**
+     * @param maxPosition The largest position that will be stored. Positions start at 1.
+     */
+    CellHeap(int maxPosition) {
+        heap = new int[maxPosition];
+        slot = new int[maxPosition + 1];
+        key = new int[maxPosition + 1];
+        Arrays.fill(slot, ABSENT);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int position) {
+        return slot[position] != ABSENT;
+    }
+
+    /**
+     * @return The position with the smallest key, the lowest such position if several share it
+     */
+    int peek() {
+        if (size == 0) throw new IllegalStateException("Heap is empty.");
+        return heap[0];
+    }
+
+    /**
+     * Add a position, or change its key if it is already present.
+     */
+    void put(int position, int newKey) {
+        int i = slot[position];
+        if (i == ABSENT) {
+            i = size++;
+            heap[i] = position;
+            slot[position] = i;
+            key[position] = newKey;
+            siftUp(i);
+        } else if (newKey != key[position]) {
+            int oldKey = key[position];
+            key[position] = newKey;
+            if (newKey < oldKey) siftUp(i);
+            else siftDown(i);
+        }
+    }
+
+    void remove(int position) {
+        int i = slot[position];
+        if (i == ABSENT) return;
+
+        slot[position] = ABSENT;
+        int last = heap[--size];
+        if (i == size) return;
+
+        heap[i] = last;
+        slot[last] = i;
+        siftUp(i);
+        siftDown(slot[last]);
+    }
+
+    private void siftUp(int i) {
+        int position = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(position, heap[parent])) break;
+            move(heap[parent], i);
+            i = parent;
+        }
+        move(position, i);
+    }
+
+    private void siftDown(int i) {
+        int position = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+            if (!less(heap[child], position)) break;
+            move(heap[child], i);
+            i = child;
+        }
+        move(position, i);
+    }
+
+    private void move(int position, int i) {
+        heap[i] = position;
+        slot[position] = i;
+    }
+
+    private boolean less(int a, int b) {
+        return key[a] < key[b] || (key[a] == key[b] && a < b);
+    }
+}
@@ -32,6 +32,12 @@ public abstract class Player {
         return name != null ? name.equals(player.name) : player.name == null;
     }
 
+    /**
+     * Called before each game the player takes part in, so that players which keep state between moves can reset it.
+     */
+    public void newGame() {
+    }
+
     /**
      * Given a current board setup, return the next move as an integer.
      * @param b The current state of the tic tac toe board
@@ -0,0 +1,39 @@
+package com.homework;
+
+/**
+ * Publishes a fresh snapshot of a board after every move, so that any number of threads can follow a live game by
+ * reading getLatest, without locks and without touching the board itself. Attach it to the board it was created for:
+ *
+ *     SnapshotPublisher publisher = new SnapshotPublisher(b);
+ *     b.addListener(publisher);
+ */
+public class SnapshotPublisher implements BoardListener {
+    private volatile BoardSnapshot latest;
+
+    /**
+     * @param b The board to publish, whose current position is published straight away
+     */
+    public SnapshotPublisher(Board b) {
+        latest = b.snapshot();
+    }
+
+    /**
+     * @return The board as of its most recent move
+     */
+    public BoardSnapshot getLatest() {
+        return latest;
+    }
+
+    @Override
+    public void onMove(Board b, int position, Board.PlayerId playerId) {
+        latest = b.snapshot();
+    }
+
+    @Override
+    public void onWin(Board b, Board.PlayerId winner, int[] winningLine) {
+    }
+
+    @Override
+    public void onDraw(Board b) {
+    }
+}
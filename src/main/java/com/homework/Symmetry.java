@@ -0,0 +1,111 @@
+package com.homework;
+
+/**
+ * The 8 symmetries of a square board: 4 rotations and 4 reflections. Applying any of them to a position gives a board
+ * that plays out exactly the same, so search results for one can be reused for all the others.
+ *
+ * Each symmetry maps a cell (row, col) on an N x N board to a new cell. Rotations are clockwise. A rectangular board
+ * only has the 4 symmetries that keep its shape: the identity, the half turn and the two mirrors.
+ */
+public enum Symmetry {
+    IDENTITY,
+    ROTATE_90,
+    ROTATE_180,
+    ROTATE_270,
+    // Mirror left to right
+    FLIP_HORIZONTAL,
+    // Mirror top to bottom
+    FLIP_VERTICAL,
+    // Mirror across the top left to bottom right diagonal
+    TRANSPOSE,
+    // Mirror across the bottom left to top right diagonal
+    ANTI_TRANSPOSE;
+
+    private static final Symmetry[] VALUES = values();
+
+    // Number of symmetries, available without copying the values array
+    public static final int COUNT = VALUES.length;
+
+    /**
+     * @return The symmetry with the given ordinal, without copying the values array
+     */
+    public static Symmetry fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * @return The symmetries of a rows x cols board, IDENTITY first
+     */
+    public static Symmetry[] forBoard(int rows, int cols) {
+        if (rows == cols) return values();
+        return new Symmetry[] {IDENTITY, ROTATE_180, FLIP_HORIZONTAL, FLIP_VERTICAL};
+    }
+
+    /**
+     * @return True if the symmetry maps a rows x cols board onto itself. Quarter turns and diagonal mirrors swap rows
+     *         and columns, so they only fit square boards.
+     */
+    public boolean fitsBoard(int rows, int cols) {
+        if (rows == cols) return true;
+        switch (this) {
+            case ROTATE_90:
+            case ROTATE_270:
+            case TRANSPOSE:
+            case ANTI_TRANSPOSE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Map a move position to the position it occupies once the board is transformed.
+     *
+     * @param movePosition The position counting from 1, top to bottom, left to right
+     * @param boardSize    The number of rows and columns of the board
+     * @return The transformed position
+     */
+    public int apply(int movePosition, int boardSize) {
+        return apply(movePosition, boardSize, boardSize);
+    }
+
+    /**
+     * Map a move position on a rows x cols board to the position it occupies once the board is transformed. The
+     * symmetry must fit the board, see fitsBoard.
+     *
+     * @param movePosition The position counting from 1, top to bottom, left to right
+     * @param rows         The number of rows of the board
+     * @param cols         The number of columns of the board
+     * @return The transformed position
+     */
+    public int apply(int movePosition, int rows, int cols) {
+        int zeroIdx = movePosition - 1;
+        int row = zeroIdx / cols;
+        int col = zeroIdx % cols;
+        int lastRow = rows - 1;
+        int lastCol = cols - 1;
+        // The quarter turns and diagonal mirrors are only defined for square boards, where rows == cols
+        switch (this) {
+            case ROTATE_90: return col * cols + (lastRow - row) + 1;
+            case ROTATE_180: return (lastRow - row) * cols + (lastCol - col) + 1;
+            case ROTATE_270: return (lastCol - col) * cols + row + 1;
+            case FLIP_HORIZONTAL: return row * cols + (lastCol - col) + 1;
+            case FLIP_VERTICAL: return (lastRow - row) * cols + col + 1;
+            case TRANSPOSE: return col * cols + row + 1;
+            case ANTI_TRANSPOSE: return (lastCol - col) * cols + (lastRow - row) + 1;
+            default: return movePosition;
+        }
+    }
+
+    /**
+     * @return The symmetry that undoes this one
+     */
+    public Symmetry inverse() {
+        switch (this) {
+            case ROTATE_90: return ROTATE_270;
+            case ROTATE_270: return ROTATE_90;
+            // Every other symmetry is its own inverse
+            default: return this;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.homework;
+
+/**
+ * Keeps every free cell of a board ranked by the totals of the lines through it, so the best cell for a line based
+ * strategy can be read off in O(1) instead of scoring the whole board every turn.
+ *
+ * Two rankings are maintained:
+ * 1) By combined total: the sum of the row, column and diagonal totals through the cell, lowest first
+ * 2) By max total: the largest row, column or diagonal total through the cell, highest first
+ * <p>
+ * A move only changes the totals of the lines through its cell, so only the free cells on those lines need to be
+ * re-ranked. Moves just mark those lines dirty, which is O(1), and the cells on dirty lines are re-ranked the next time
+ * a ranking is read, at O(log N) each. Searches that make and unmake many moves between queries, or never query at all,
+ * therefore pay almost nothing for the index.
+ */
+class ThreatIndex {
+    private final Board board;
+    private final int rows;
+    private final int cols;
+    private final CellHeap byCombinedTotal;
+    // Keys are negated so that the min-heap yields the highest max total first
+    private final CellHeap byMaxTotal;
+
+    // Lines whose totals changed since the rankings were last brought up to date, as flags and as lists of indices
+    private final boolean[] dirtyRows;
+    private final boolean[] dirtyCols;
+    private final int[] dirtyRowList;
+    private final int[] dirtyColList;
+    private int dirtyRowCount = 0;
+    private int dirtyColCount = 0;
+    private boolean topToBottomDiagDirty = false;
+    private boolean bottomToTopDiagDirty = false;
+
+    /**
+     * Build the index from the current state of the board.
+     */
+    ThreatIndex(Board board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        int cells = board.getCellCount();
+        byCombinedTotal = new CellHeap(cells);
+        byMaxTotal = new CellHeap(cells);
+        dirtyRows = new boolean[rows];
+        dirtyCols = new boolean[cols];
+        dirtyRowList = new int[rows];
+        dirtyColList = new int[cols];
+        for (int position = 1; position <= cells; position++) {
+            refresh(position);
+        }
+    }
+
+    /**
+     * @return The free position with the lowest combined line total, the lowest such position on ties
+     */
+    int lowestCombinedTotalCell() {
+        update();
+        return byCombinedTotal.peek();
+    }
+
+    /**
+     * @return The free position with the highest max line total, the lowest such position on ties
+     */
+    int highestMaxTotalCell() {
+        update();
+        return byMaxTotal.peek();
+    }
+
+    /**
+     * Note that a cell was claimed or released, so the cells on its lines must be re-ranked before the next query.
+     * @param row The row of the cell that changed
+     * @param col The column of the cell that changed
+     */
+    void onCellChanged(int row, int col) {
+        if (!dirtyRows[row]) {
+            dirtyRows[row] = true;
+            dirtyRowList[dirtyRowCount++] = row;
+        }
+        if (!dirtyCols[col]) {
+            dirtyCols[col] = true;
+            dirtyColList[dirtyColCount++] = col;
+        }
+        // The diagonals are only tracked on square boards, where rows == cols
+        if (board.onTopToBottomDiag(row, col)) topToBottomDiagDirty = true;
+        if (board.onBottomToTopDiag(row, col)) bottomToTopDiagDirty = true;
+    }
+
+    /**
+     * Re-rank the cells on every dirty line.
+     */
+    private void update() {
+        for (int i = 0; i < dirtyRowCount; i++) {
+            int row = dirtyRowList[i];
+            dirtyRows[row] = false;
+            for (int col = 0; col < cols; col++) {
+                refresh(board.getMovePosition(row, col));
+            }
+        }
+        dirtyRowCount = 0;
+        for (int i = 0; i < dirtyColCount; i++) {
+            int col = dirtyColList[i];
+            dirtyCols[col] = false;
+            for (int row = 0; row < rows; row++) {
+                refresh(board.getMovePosition(row, col));
+            }
+        }
+        dirtyColCount = 0;
+        if (topToBottomDiagDirty) {
+            for (int i = 0; i < rows; i++) {
+                refresh(board.getMovePosition(i, i));
+            }
+            topToBottomDiagDirty = false;
+        }
+        if (bottomToTopDiagDirty) {
+            for (int i = 0; i < rows; i++) {
+                refresh(board.getMovePosition(i, rows - 1 - i));
+            }
+            bottomToTopDiagDirty = false;
+        }
+    }
+
+    private void refresh(int position) {
+        if (!board.isValidMove(position)) {
+            byCombinedTotal.remove(position);
+            byMaxTotal.remove(position);
+            return;
+        }
+
+        int row = (position - 1) / cols;
+        int col = (position - 1) % cols;
+        byCombinedTotal.put(position, board.getCombinedLineTotal(row, col));
+        byMaxTotal.put(position, -board.getMaxLineTotal(row, col));
+    }
+}
@@ -2,26 +2,228 @@ package com.homework.impl;
 
 import com.homework.Board;
 import com.homework.Player;
+import com.homework.metrics.GameMetrics;
+import com.homework.metrics.LatencyHistogram;
+import com.homework.tablebase.Tablebase;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Implementation of an AI TicTacToe player that selects next move based on a selected algorithm.
- * Currently supports random-choice and a simple greedy algorithm.
+ * Currently supports random-choice, a simple greedy algorithm, a minimax search with alpha-beta pruning, a Monte
+ * Carlo tree search and perfect play looked up in a precomputed tablebase.
  */
 public class AIPlayer extends Player {
     public enum Algorithm {
-        RANDOM, GREEDY, EVIL
+        RANDOM, GREEDY, EVIL, MINIMAX, MCTS, PERFECT
     }
 
+    // Deep enough to solve the default 3x3 board outright. Larger boards should configure a shallower search.
+    public static final int DEFAULT_SEARCH_DEPTH = 9;
+
+    // Memory given to the MINIMAX transposition table unless one is supplied
+    public static final long DEFAULT_TABLE_BYTES = 4L * 1024 * 1024;
+
+    // Number of playouts the MCTS algorithm runs per move unless configured otherwise
+    public static final int DEFAULT_PLAYOUTS = 10000;
+
     private Algorithm algo = Algorithm.RANDOM;
 
+    // Number of plies the MINIMAX algorithm looks ahead
+    private int searchDepth = DEFAULT_SEARCH_DEPTH;
+
+    private MinimaxSearch search = null;
+
+    private TranspositionTable table = null;
+    private boolean tableConfigured = false;
+
+    // Most playouts the MCTS algorithm runs per move
+    private int playouts = DEFAULT_PLAYOUTS;
+
+    // Most wall-clock time the MINIMAX and MCTS algorithms take per move, or 0 for no limit
+    private long moveTimeBudgetMillis = 0;
+
+    // Number of threads the MINIMAX algorithm searches on and the MCTS algorithm runs playouts on
+    private int searchThreads = 1;
+
+    private MonteCarloSearch monteCarloSearch = null;
+
+    // Solved positions for the PERFECT algorithm, looked up for the board being played if not configured
+    private Tablebase tablebase = null;
+
+    // Source of randomness for the RANDOM and MCTS algorithms. Seed it to make the player's moves reproducible.
+    private SplittableRandom random = new SplittableRandom();
+
+    // Statistics for the most recent call to getNextMove
+    private long lastNodesSearched = 0;
+    private long lastTableProbes = 0;
+    private long lastTableHits = 0;
+    private long lastPlayouts = 0;
+    private int lastSearchDepth = 0;
+    private long lastMoveTimeNanos = 0;
+
+    // Time taken to choose every move so far
+    private final LatencyHistogram moveLatencies = new LatencyHistogram();
+
     public AIPlayer(Board.PlayerId playerId, String name, Algorithm algo) {
         super(playerId, name);
         this.algo = algo;
     }
 
+    /**
+     * @param searchDepth The number of plies the MINIMAX algorithm looks ahead. Must be >= 1.
+     * @throws IllegalArgumentException if searchDepth < 1
+     */
+    public AIPlayer(Board.PlayerId playerId, String name, Algorithm algo, int searchDepth) {
+        this(playerId, name, algo);
+        if (searchDepth < 1) throw new IllegalArgumentException("Search depth must be at least 1.");
+        this.searchDepth = searchDepth;
+    }
+
+    /**
+     * Use the given transposition table for MINIMAX searches instead of the default one. A table may be shared by
+     * several players.
+     * @param table The table to use, or null to search without one
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        this.tableConfigured = true;
+        closeMinimaxSearch();
+    }
+
+    /**
+     * @return The transposition table MINIMAX searches use, or null if none has been configured or created yet
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Use the given tablebase for PERFECT play instead of looking one up for the board.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * @param playouts The most playouts the MCTS algorithm runs per move. Must be >= 1.
+     * @throws IllegalArgumentException if playouts < 1
+     */
+    public void setPlayouts(int playouts) {
+        if (playouts < 1) throw new IllegalArgumentException("Must run at least one playout.");
+        this.playouts = playouts;
+    }
+
+    /**
+     * Limit the wall-clock time the MINIMAX and MCTS algorithms take per move. MINIMAX deepens its search one ply at a
+     * time and plays the best move of the deepest search it finished in time. MCTS stops at whichever of its playout
+     * and time budgets runs out first. Moves chosen against a clock depend on machine speed, so they are not
+     * reproducible from the seed alone.
+     * <p>
+     * The budget covers the search itself. A search checks the clock periodically, so it may overrun the budget
+     * slightly, and MINIMAX always finishes a one ply search whatever the budget.
+     * @param millis The time budget in milliseconds, or 0 for no limit
+     * @throws IllegalArgumentException if millis < 0
+     */
+    public void setMoveTimeBudget(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("Time budget must not be negative.");
+        this.moveTimeBudgetMillis = millis;
+    }
+
+    /**
+     * @param threads The number of threads the MINIMAX algorithm searches on, splitting the moves at the root between
+     *                them, and the MCTS algorithm runs playouts on. Must be >= 1.
+     * @throws IllegalArgumentException if threads < 1
+     */
+    public void setSearchThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Must use at least one thread.");
+        this.searchThreads = threads;
+        closeMinimaxSearch();
+        if (monteCarloSearch != null) monteCarloSearch.close();
+        monteCarloSearch = null;
+    }
+
+    /**
+     * Restart the player's random number stream from the given seed, so that the same seed always produces the same
+     * sequence of random moves.
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Forget positions searched in previous games, so a game's moves do not depend on the games played before it.
+     */
+    @Override
+    public void newGame() {
+        if (table != null) table.clear();
+    }
+
+    public Algorithm getAlgorithm() {
+        return algo;
+    }
+
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    public int getPlayouts() {
+        return playouts;
+    }
+
+    public long getMoveTimeBudget() {
+        return moveTimeBudgetMillis;
+    }
+
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    /**
+     * @return The number of positions examined while choosing the most recent move. Always 0 for algorithms that do
+     *         not search.
+     */
+    public long getNodesSearched() {
+        return lastNodesSearched;
+    }
+
+    /**
+     * @return The number of random playouts run while choosing the most recent move. Always 0 for algorithms other
+     *         than MCTS.
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return The playout rate, across all threads, while choosing the most recent move
+     */
+    public double getPlayoutsPerSecond() {
+        return lastMoveTimeNanos == 0 ? 0 : lastPlayouts / (lastMoveTimeNanos / 1e9);
+    }
+
+    /**
+     * @return The deepest search MINIMAX completed while choosing the most recent move. Always 0 for other algorithms.
+     */
+    public int getLastSearchDepth() {
+        return lastSearchDepth;
+    }
+
+    /**
+     * @return The wall-clock time in nanoseconds taken to choose the most recent move
+     */
+    public long getLastMoveTimeNanos() {
+        return lastMoveTimeNanos;
+    }
+
+    /**
+     * @return The distribution of the time taken to choose each move so far, e.g. to check moves against a latency
+     *         budget. The histogram is live and may be reset.
+     */
+    public LatencyHistogram getMoveLatencies() {
+        return moveLatencies;
+    }
+
     public int getNextMove(Board b) {
         // These checks should hit since the external logic should handle this but check just in case.
         if (!b.validMovesRemain()) {
@@ -32,102 +234,144 @@ public class AIPlayer extends Player {
             throw new IllegalStateException("Can't make a move when game has already been won.");
         }
 
-        // If selecting randomly, start by populating a list of available cells and then pick a random index
-        switch(algo) {
-            case GREEDY: return getGreedyMove(b);
-            case EVIL: return getEvilMove(b);
-            default: return getRandomMove(b);
+        long start = System.nanoTime();
+        lastNodesSearched = 0;
+        lastTableProbes = 0;
+        lastTableHits = 0;
+        lastPlayouts = 0;
+        lastSearchDepth = 0;
+        int move;
+        // Searches make and unmake moves on the board, which listeners must not see
+        boolean wasMuted = b.setListenersMuted(true);
+        try {
+            switch(algo) {
+                case GREEDY: move = getGreedyMove(b); break;
+                case EVIL: move = getEvilMove(b); break;
+                case MINIMAX: move = getMinimaxMove(b, start); break;
+                case MCTS: move = getMonteCarloMove(b, start); break;
+                case PERFECT: move = getPerfectMove(b, start); break;
+                default: move = getRandomMove(b);
+            }
+        } finally {
+            b.setListenersMuted(wasMuted);
         }
+        lastMoveTimeNanos = System.nanoTime() - start;
+        moveLatencies.record(lastMoveTimeNanos);
+        GameMetrics.get().recordDecision(algo, lastMoveTimeNanos, lastNodesSearched, lastPlayouts, lastTableProbes,
+                lastTableHits);
+        return move;
     }
 
     /**
-     * Pick a random square from all available open squares.
-     * @param b The current board
-     * @return
+     * @param start The System.nanoTime the move started at
+     * @return The System.nanoTime the move's time budget runs out at, or 0 if there is no budget
      */
-    private int getRandomMove(Board b) {
-        int maxMoves = b.getBoardSize() * b.getBoardSize();
-        ArrayList<Integer> moves = new ArrayList<Integer>(maxMoves);
+    private long deadline(long start) {
+        return moveTimeBudgetMillis > 0 ? start + moveTimeBudgetMillis * 1_000_000 : 0;
+    }
 
-        // TODO Assume square board, if this assumption goes away, update here
-        for (int i = 1; i <= maxMoves; i++) {
-            if (b.isValidMove(i)) {
-                moves.add(i);
+    /**
+     * Search ahead with alpha-beta pruning for the move that leads to the best position within the depth limit, or as
+     * deep as the time budget allows.
+     * @param b The current board state
+     * @param start The System.nanoTime the move started at, from which the time budget counts
+     * @return
+     */
+    private int getMinimaxMove(Board b, long start) {
+        if (search == null) {
+            if (!tableConfigured) {
+                table = new TranspositionTable(DEFAULT_TABLE_BYTES, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED);
+                tableConfigured = true;
             }
+            search = new MinimaxSearch(table, searchThreads);
+        }
+        int move = search.findBestMove(b, getPlayerId(), searchDepth, deadline(start));
+        lastNodesSearched = search.getNodesSearched();
+        lastTableProbes = search.getTableProbes();
+        lastTableHits = search.getTableHits();
+        lastSearchDepth = search.getCompletedDepth();
+        return move;
+    }
+
+    /**
+     * Drop the MINIMAX search so that the next move starts a new one, stopping the threads of the old one.
+     */
+    private void closeMinimaxSearch() {
+        if (search != null) search.close();
+        search = null;
+    }
+
+    /**
+     * Look the position up in a tablebase of solved positions, which takes no search at all. Boards too large to have
+     * a tablebase fall back to MINIMAX.
+     * @param b The current board state
+     * @param start The System.nanoTime the move started at, from which the time budget counts
+     * @return
+     */
+    private int getPerfectMove(Board b, long start) {
+        if (tablebase == null || !tablebase.covers(b)) {
+            tablebase = Tablebase.find(b.getRows(), b.getCols(), b.getWinLength());
         }
+        GameMetrics.get().recordTablebaseLookup(tablebase != null);
+        if (tablebase == null) return getMinimaxMove(b, start);
+        return tablebase.getBestMove(b, getPlayerId());
+    }
 
-        Random r = new Random(System.currentTimeMillis());
-        int moveIdx = r.nextInt(moves.size());
-        return moves.get(moveIdx);
+    /**
+     * Run random playouts from the current position, guided by UCT, and pick the move that was explored the most.
+     * @param b The current board state
+     * @param start The System.nanoTime the move started at, from which the time budget counts
+     * @return
+     */
+    private int getMonteCarloMove(Board b, long start) {
+        if (monteCarloSearch == null) {
+            monteCarloSearch = new MonteCarloSearch(searchThreads);
+        }
+        int move = monteCarloSearch.findBestMove(b, getPlayerId(), playouts, deadline(start), random);
+        lastPlayouts = monteCarloSearch.getPlayouts();
+        return move;
+    }
+
+    /**
+     * Pick a random square from all available open squares. The board tracks its free cells, so this is O(1).
+     * @param b The current board
+     * @return
+     */
+    private int getRandomMove(Board b) {
+        return b.getFreeCell(random.nextInt(b.getFreeCellCount()));
     }
 
     /**
      * Attempt to select a move by finding square such that the combined score of that of row, col, and/or diagonal
      * is maximized in favor of the AI.
      *
+     * AI score is negative. Assume an X counts as 1, an open counts as 0, and an O counts as -1. We want to find the
+     * square which has the highest number of Os in the same row, diag, or col, i.e. the lowest combined total. The
+     * board keeps its free cells ranked by that total, so this does not need to scan the board.
+     *
      * TODO For the moment make the brittle assumption that the AI is player 2 and the numeric value of its score is -1
      * @param b The current board state
      * @return
      */
     private int getGreedyMove(Board b)
     {
-        int mostFavorableScore = Integer.MAX_VALUE;
-        int bestMove = 1;
-
-        // TODO Assume square board, if this assumption goes away, update here since diagonal checks may be wrong
-        for (int row = 0; row < b.getRowTotals().length; row++) {
-            for (int col = 0; col < b.getColTotals().length; col++) {
-                if (b.isValidMove(b.getMovePosition(row, col))) {
-                    // AI score is negative. Assume an X counts as 1, an open counts as 0, and an O counts as -1
-                    // We want to find the square which has the highest number of Os in the same row, diag, or col so
-                    // take the combined sum of all these scores
-                    int cellScore = b.getColTotals()[col] + b.getRowTotals()[row];
-                    if (b.onTopToBottomDiag(row, col)) cellScore += b.getTopToBottomDiagTotal();
-                    if (b.onBottomToTopDiag(row, col)) cellScore += b.getBottomToTopDiagTotal();
-
-                    if (cellScore < mostFavorableScore) {
-                        mostFavorableScore = cellScore;
-                        bestMove = b.getMovePosition(row, col);
-                    }
-                }
-            }
-        }
-
-        return bestMove;
+        return b.getFreeCellWithLowestCombinedTotal();
     }
 
     /**
      * Attempt to select a move by finding square such that the combined score of that of row, col, and/or diagonal
      * to best block the human player
      *
+     * To best block the human we want to find the square which has the highest number of Xs in the same row, diag,
+     * or col, i.e. the highest max line total. The board keeps its free cells ranked by that total, so this does not
+     * need to scan the board.
+     *
      * TODO For the moment make the brittle assumption that the AI is player 2 and the numeric value of its score is -1
      * @param b The current board state
      * @return
      */
     private int getEvilMove(Board b)
     {
-        int mostFavorableScore = Integer.MIN_VALUE;
-        int bestMove = 1;
-
-        // TODO Assume square board, if this assumption goes away, update here since diagonal checks may be wrong
-        for (int row = 0; row < b.getRowTotals().length; row++) {
-            for (int col = 0; col < b.getColTotals().length; col++) {
-                if (b.isValidMove(b.getMovePosition(row, col))) {
-                    // AI score is negative. Assume an X counts as 1, an open counts as 0, and an O counts as -1
-                    // To best block the human We want to find the square which has the highest number of Xs
-                    // in the same row, diag, or col
-                    int cellScore = Math.max(b.getColTotals()[col], b.getRowTotals()[row]);
-                    if (b.onTopToBottomDiag(row, col)) cellScore = Math.max(cellScore, b.getTopToBottomDiagTotal());
-                    if (b.onBottomToTopDiag(row, col)) cellScore = Math.max(cellScore, b.getBottomToTopDiagTotal());
-
-                    if (cellScore > mostFavorableScore) {
-                        mostFavorableScore = cellScore;
-                        bestMove = b.getMovePosition(row, col);
-                    }
-                }
-            }
-        }
-
-        return bestMove;
+        return b.getFreeCellWithHighestMaxTotal();
     }
 }
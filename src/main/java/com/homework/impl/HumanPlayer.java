@@ -26,7 +26,7 @@ public class HumanPlayer extends Player {
         int move;
         do {
             System.out.println(super.getName() + " - Please enter your next move as a number between 1 and " +
-                    b.getBoardSize() * b.getBoardSize());
+                    b.getCellCount());
             Scanner sc = new Scanner(System.in);
             move = sc.nextInt();
             if (!b.isValidMove(move)) {
@@ -0,0 +1,547 @@
+package com.homework.impl;
+
+import com.homework.Board;
+import com.homework.Symmetry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Depth-limited negamax search with alpha-beta pruning. The search plays moves directly on the board it is given and
+ * reverts them with Board.unmove, so no board copies are made while searching.
+ *
+ * Moves are ordered using the same row, column and diagonal totals that the GREEDY and EVIL players score cells with,
+ * so the most promising cells are tried first and cutoffs happen early. If a transposition table is supplied, positions
+ * already searched through a different move order are answered from the table, and the best move recorded for a
+ * position is always tried first.
+ *
+ * When given a deadline, the search deepens one ply at a time up to the depth limit, so that it can stop at any point
+ * and fall back on the best move of the last depth it finished. Each depth also leaves best moves in the table for the
+ * next one to try first, which pays for much of the repeated shallower searches. Without a deadline it searches
+ * straight to the depth limit.
+ *
+ * Both the table and the move generation take advantage of board symmetry. Table entries are keyed on the canonical
+ * form of the board, so a rotation or reflection of a searched position is a hit too. When the position itself is
+ * symmetric, e.g. the empty board, only one move out of each set of equivalent moves is searched.
+ *
+ * With more than one thread, each depth is split at the root in the manner of Young Brothers Wait: the first root move
+ * is searched alone to establish a score to beat, then the remaining moves are handed out one at a time to every
+ * thread, each searching on its own copy of the board against the best score found so far. All threads share the
+ * transposition table. Which thread finds which result first varies from run to run, so on positions with several
+ * equally good moves a parallel search may not pick the same one every time.
+ */
+class MinimaxSearch {
+    // Score of a won position. Wins found closer to the root score higher so the search prefers the quickest win.
+    static final int WIN_SCORE = 1_000_000;
+
+    // Any score beyond this is a forced win or loss rather than a heuristic evaluation
+    private static final int WIN_THRESHOLD = WIN_SCORE - 100_000;
+
+    // Static evaluations are clamped to this, so however many lines are in play they never pass for a win
+    private static final int MAX_EVALUATION = WIN_THRESHOLD / 10;
+
+    // Mixed into the hash when player two is to move, so the same cells with a different mover are distinct entries
+    private static final long PLAYER_TWO_TO_MOVE = 0x2545F4914F6CDD1DL;
+
+    // Nodes searched between checks of the clock when searching against a deadline
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final TranspositionTable table;
+
+    // Searches run by the other threads of a parallel search, one per extra thread, created on first use
+    private final int threads;
+    private MinimaxSearch[] helpers = null;
+    private ForkJoinPool pool = null;
+
+    // Per-ply scratch space for the ordered candidate moves and their ordering keys, reused across searches
+    private int[][] moveBuffers = new int[0][];
+    private int[][] keyBuffers = new int[0][];
+
+    private long nodesSearched = 0;
+    private long tableProbes = 0;
+    private long tableHits = 0;
+    private int rootBestMove = 0;
+
+    // The System.nanoTime to give up at, or 0 for no deadline, and whether the current depth has run out of time
+    private long deadlineNanos = 0;
+    private boolean aborted = false;
+    private int completedDepth = 0;
+
+    /**
+     * @param table Table to share search results across positions and searches, or null to search without one
+     */
+    MinimaxSearch(TranspositionTable table) {
+        this(table, 1);
+    }
+
+    /**
+     * @param table   Table to share search results across positions, searches and threads, or null to search without
+     *                one
+     * @param threads The number of threads to search on. Must be >= 1.
+     */
+    MinimaxSearch(TranspositionTable table, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Must use at least one thread.");
+        this.table = table;
+        this.threads = threads;
+    }
+
+    /**
+     * Search for the best move for the given player.
+     *
+     * @param b        The current board. It is modified during the search but restored before returning.
+     * @param playerId The player to move
+     * @param maxDepth The maximum number of plies to look ahead. Must be >= 1.
+     * @return The best move found
+     */
+    int findBestMove(Board b, Board.PlayerId playerId, int maxDepth) {
+        return findBestMove(b, playerId, maxDepth, 0);
+    }
+
+    /**
+     * Search for the best move for the given player within a deadline. The search goes one ply deeper at a time until
+     * the depth limit is reached, the outcome is decided or the deadline passes. A depth cut short by the deadline is
+     * thrown away, and the best move of the deepest completed depth is returned. The first depth always runs to
+     * completion so there is a move to return.
+     *
+     * @param b             The current board. It is modified during the search but restored before returning.
+     * @param playerId      The player to move
+     * @param maxDepth      The maximum number of plies to look ahead. Must be >= 1.
+     * @param deadlineNanos The System.nanoTime after which to stop, or 0 to always search to maxDepth
+     * @return The best move found
+     */
+    int findBestMove(Board b, Board.PlayerId playerId, int maxDepth, long deadlineNanos) {
+        if (maxDepth < 1) throw new IllegalArgumentException("Search depth must be at least 1.");
+
+        nodesSearched = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        completedDepth = 0;
+        aborted = false;
+        this.deadlineNanos = 0;
+        int cells = b.getCellCount();
+        // Searching past the end of the game finds nothing new
+        int depthLimit = Math.min(maxDepth, cells - b.getMoveCount());
+        ensureCapacity(depthLimit, cells);
+
+        Board[] copies = threads > 1 ? prepareHelpers(b, depthLimit, cells) : null;
+
+        int bestMove = 0;
+        int firstDepth = deadlineNanos == 0 ? depthLimit : 1;
+        for (int depth = firstDepth; depth <= depthLimit; depth++) {
+            int score = copies != null ? searchRootInParallel(b, copies, playerId, depth) :
+                    negamax(b, playerId, depth, 0, -WIN_SCORE - 1, WIN_SCORE + 1);
+            if (aborted) break;
+
+            bestMove = rootBestMove;
+            completedDepth = depth;
+            // A forced win or loss will not change with a deeper search
+            if (Math.abs(score) > WIN_THRESHOLD) break;
+            // Only the first depth is guaranteed to finish
+            this.deadlineNanos = deadlineNanos;
+            if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) break;
+        }
+        return bestMove;
+    }
+
+    /**
+     * Stop the helper threads of a parallel search. The search may still be used afterwards, and starts them again.
+     */
+    void close() {
+        if (pool == null) return;
+        pool.shutdown();
+        pool = null;
+        helpers = null;
+    }
+
+    /**
+     * Reset the helper searches for a new parallel search and give each its own copy of the board.
+     */
+    private Board[] prepareHelpers(Board b, int depthLimit, int cells) {
+        if (helpers == null) {
+            helpers = new MinimaxSearch[threads - 1];
+            for (int i = 0; i < helpers.length; i++) {
+                helpers[i] = new MinimaxSearch(table);
+            }
+            pool = new ForkJoinPool(threads - 1);
+        }
+        Board[] copies = new Board[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i].nodesSearched = 0;
+            helpers[i].tableProbes = 0;
+            helpers[i].tableHits = 0;
+            helpers[i].ensureCapacity(depthLimit, cells);
+            copies[i] = new Board(b);
+        }
+        return copies;
+    }
+
+    /**
+     * Search the root to the given depth, with the moves after the first split across every thread. Equivalent to the
+     * negamax call at the root of a single threaded search, including the table entry it leaves.
+     */
+    private int searchRootInParallel(Board b, Board[] copies, final Board.PlayerId playerId, final int depth) {
+        long key = 0;
+        Symmetry canonical = Symmetry.IDENTITY;
+        int tableMove = 0;
+        if (table != null) {
+            canonical = b.getCanonicalSymmetry();
+            key = b.getCanonicalHash() ^ (playerId == Board.PlayerId.PLAYER_TWO ? PLAYER_TWO_TO_MOVE : 0);
+            long entry = table.probe(key);
+            tableProbes++;
+            if (entry != TranspositionTable.NOT_FOUND) {
+                tableHits++;
+                tableMove = canonical.inverse().apply(TranspositionTable.move(entry), b.getRows(), b.getCols());
+            }
+        }
+        final int[] moves = Arrays.copyOf(moveBuffers[0], orderMoves(b, 0, tableMove));
+
+        // The eldest brother is searched alone so that its younger brothers have a score to beat
+        final int[] scores = new int[moves.length];
+        final boolean[] exact = new boolean[moves.length];
+        scores[0] = scoreMove(b, playerId, moves[0], depth, 0, -WIN_SCORE - 1, WIN_SCORE + 1);
+        exact[0] = true;
+        if (aborted) return 0;
+
+        final AtomicInteger nextMove = new AtomicInteger(1);
+        final AtomicInteger alpha = new AtomicInteger(scores[0]);
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(helpers.length);
+        for (int i = 0; i < helpers.length; i++) {
+            final MinimaxSearch helper = helpers[i];
+            final Board copy = copies[i];
+            helper.deadlineNanos = deadlineNanos;
+            helper.aborted = false;
+            tasks.add(pool.submit(ForkJoinTask.adapt(new Runnable() {
+                @Override
+                public void run() {
+                    helper.searchSiblings(copy, playerId, depth, moves, scores, exact, nextMove, alpha);
+                }
+            })));
+        }
+        searchSiblings(b, playerId, depth, moves, scores, exact, nextMove, alpha);
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).join();
+            nodesSearched += helpers[i].nodesSearched;
+            tableProbes += helpers[i].tableProbes;
+            tableHits += helpers[i].tableHits;
+            helpers[i].nodesSearched = 0;
+            helpers[i].tableProbes = 0;
+            helpers[i].tableHits = 0;
+            aborted |= helpers[i].aborted;
+        }
+        if (aborted) return 0;
+
+        // Only scores that beat the bound they were searched against are exact. Keep the earliest of the best.
+        int best = 0;
+        for (int i = 1; i < moves.length; i++) {
+            if (exact[i] && scores[i] > scores[best]) best = i;
+        }
+        rootBestMove = moves[best];
+        if (table != null) {
+            table.store(key, depth, TranspositionTable.EXACT, toTable(scores[best], 0),
+                    canonical.apply(rootBestMove, b.getRows(), b.getCols()));
+        }
+        return scores[best];
+    }
+
+    /**
+     * Take root moves from the shared queue and search each against the best score found so far by any thread, until
+     * every move has been taken or the deadline passes.
+     */
+    private void searchSiblings(Board b, Board.PlayerId playerId, int depth, int[] moves, int[] scores,
+                                boolean[] exact, AtomicInteger nextMove, AtomicInteger alpha) {
+        int i;
+        while ((i = nextMove.getAndIncrement()) < moves.length) {
+            int bound = alpha.get();
+            int score = scoreMove(b, playerId, moves[i], depth, 0, bound, WIN_SCORE + 1);
+            if (aborted) return;
+            scores[i] = score;
+            exact[i] = score > bound;
+
+            int current;
+            while (score > (current = alpha.get()) && !alpha.compareAndSet(current, score)) {
+                // Another thread raised the bound in the meantime, so try again against its value
+            }
+        }
+    }
+
+    /**
+     * @return The deepest search the most recent call to findBestMove completed
+     */
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return The number of positions visited by the most recent search
+     */
+    long getNodesSearched() {
+        return nodesSearched;
+    }
+
+    /**
+     * @return The number of transposition table lookups made by the most recent search
+     */
+    long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * @return The number of lookups in the most recent search that found their position
+     */
+    long getTableHits() {
+        return tableHits;
+    }
+
+    private int negamax(Board b, Board.PlayerId mover, int depth, int ply, int alpha, int beta) {
+        if (depth == 0) return evaluate(b, mover);
+        if (aborted) return 0;
+
+        long key = 0;
+        Symmetry canonical = Symmetry.IDENTITY;
+        int tableMove = 0;
+        int originalAlpha = alpha;
+        if (table != null) {
+            canonical = b.getCanonicalSymmetry();
+            key = b.getCanonicalHash() ^ (mover == Board.PlayerId.PLAYER_TWO ? PLAYER_TWO_TO_MOVE : 0);
+            long entry = table.probe(key);
+            tableProbes++;
+            if (entry != TranspositionTable.NOT_FOUND) {
+                tableHits++;
+                // The table stores moves for the canonical board, so map it back onto this one
+                tableMove = canonical.inverse().apply(TranspositionTable.move(entry), b.getRows(), b.getCols());
+
+                // Never cut off at the root, where we need an actual move rather than just a score
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT) return score;
+                    if (bound == TranspositionTable.LOWER_BOUND) alpha = Math.max(alpha, score);
+                    else beta = Math.min(beta, score);
+                    if (alpha >= beta) return score;
+                }
+            }
+        }
+
+        int count = orderMoves(b, ply, tableMove);
+        int[] moves = moveBuffers[ply];
+        int best = -WIN_SCORE - 1;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            int score = scoreMove(b, mover, moves[i], depth, ply, alpha, beta);
+            if (aborted) break;
+            if (score > best) {
+                best = score;
+                bestMove = moves[i];
+            }
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+
+        // A search cut short by the deadline has an unreliable score, so keep it out of the table
+        if (aborted) return 0;
+        if (ply == 0) rootBestMove = bestMove;
+        if (table != null) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND :
+                    best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+            table.store(key, depth, bound, toTable(best, ply), canonical.apply(bestMove, b.getRows(), b.getCols()));
+        }
+        return best;
+    }
+
+    /**
+     * Win and loss scores depend on how far the win is from the root. Store them relative to the position instead so
+     * an entry is valid no matter which ply the position is reached at.
+     */
+    private static int toTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score + ply;
+        if (score < -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score - ply;
+        if (score < -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    /**
+     * Make a move, score the resulting position from the mover's point of view and undo the move again.
+     */
+    private int scoreMove(Board b, Board.PlayerId mover, int move, int depth, int ply, int alpha, int beta) {
+        if (++nodesSearched % DEADLINE_CHECK_INTERVAL == 0 && deadlineNanos != 0 &&
+                System.nanoTime() - deadlineNanos > 0) {
+            aborted = true;
+        }
+        b.move(move, mover);
+        int score;
+        if (b.isBoardWon()) {
+            score = WIN_SCORE - ply;
+        } else if (!b.validMovesRemain()) {
+            score = 0;
+        } else {
+            score = -negamax(b, opponent(mover), depth - 1, ply + 1, -beta, -alpha);
+        }
+        b.unmove();
+        return score;
+    }
+
+    /**
+     * Static evaluation of a non-terminal position from the point of view of the player to move. Every window of
+     * winLength cells in a row, column or diagonal that holds marks of only one player could still be completed by
+     * them, so it counts for that player by the square of its marks. Windows with marks of both players are dead and
+     * empty windows are even, so only windows through a claimed cell need to be looked at.
+     */
+    private static int evaluate(Board b, Board.PlayerId mover) {
+        long score = 0;
+        int moves = b.getMoveCount();
+        for (int i = 0; i < moves; i++) {
+            int position = b.getMove(i);
+            score += windowsFrom(b, position, 0, 1) + windowsFrom(b, position, 1, 0) +
+                    windowsFrom(b, position, 1, 1) + windowsFrom(b, position, 1, -1);
+        }
+        score = Math.max(-MAX_EVALUATION, Math.min(MAX_EVALUATION, score));
+        return (int) score * mover.getNumVal();
+    }
+
+    /**
+     * Sum the weights of the windows running through a claimed cell in the direction (rowStep, colStep) whose first
+     * claimed cell it is, so that each window is counted once, by the first of its claimed cells.
+     */
+    private static long windowsFrom(Board b, int position, int rowStep, int colStep) {
+        int rows = b.getRows();
+        int cols = b.getCols();
+        int winLength = b.getWinLength();
+        int row = (position - 1) / cols;
+        int col = (position - 1) % cols;
+        int positionStep = rowStep * cols + colStep;
+
+        // How far back windows can start without running off the board or over another claimed cell
+        int before = Math.min(winLength - 1, cellsBefore(row, col, rowStep, colStep, rows, cols));
+        int free = 0;
+        while (free < before && b.getCellOwner(position - (free + 1) * positionStep) == null) {
+            free++;
+        }
+        // Cells the windows can reach from here on, including this one
+        int length = Math.min(winLength, cellsBefore(row, col, -rowStep, -colStep, rows, cols) + 1);
+
+        long weights = 0;
+        int marks = 0;
+        int total = 0;
+        for (int step = 0; step < length; step++) {
+            Board.PlayerId owner = b.getCellOwner(position + step * positionStep);
+            if (owner != null) {
+                marks++;
+                total += owner.getNumVal();
+            }
+            // The window ending here starts winLength - 1 cells back, which must be one of the free cells
+            if (step >= winLength - 1 - free && Math.abs(total) == marks) weights += weight(total);
+        }
+        return weights;
+    }
+
+    /**
+     * @return The number of cells on the board before (row, col) going back along the direction (rowStep, colStep)
+     */
+    private static int cellsBefore(int row, int col, int rowStep, int colStep, int rows, int cols) {
+        int cells = Integer.MAX_VALUE;
+        if (rowStep > 0) cells = row;
+        else if (rowStep < 0) cells = rows - 1 - row;
+        if (colStep > 0) cells = Math.min(cells, col);
+        else if (colStep < 0) cells = Math.min(cells, cols - 1 - col);
+        return cells;
+    }
+
+    private static long weight(int windowTotal) {
+        return (long) windowTotal * Math.abs(windowTotal);
+    }
+
+    /**
+     * Measure how contested a cell is: the sum of the absolute totals of every line through it. A line dominated by
+     * either player makes the cell worth taking, either to build towards a win as GREEDY does or to block as EVIL
+     * does.
+     * @param b The current board state
+     * @param row The cell row
+     * @param col The cell column
+     * @return
+     */
+    private static int lineUrgency(Board b, int row, int col) {
+        int urgency = Math.abs(b.getRowTotals()[row]) + Math.abs(b.getColTotals()[col]);
+        if (b.onTopToBottomDiag(row, col)) urgency += Math.abs(b.getTopToBottomDiagTotal());
+        if (b.onBottomToTopDiag(row, col)) urgency += Math.abs(b.getBottomToTopDiagTotal());
+        return urgency;
+    }
+
+    /**
+     * Fill the move buffer for the given ply with every free cell, sorted so the most urgent cells come first.
+     * A cell is urgent if the lines through it are dominated by either player, since that is where a player can
+     * build towards a win (what GREEDY looks for) or needs to block one (what EVIL looks for). A move recorded in the
+     * transposition table always goes first.
+     * <p>
+     * If the board is unchanged by some of its symmetries, moves that those symmetries map onto each other lead to
+     * equivalent positions, so only the lowest numbered move of each such group is kept.
+     *
+     * @return The number of candidate moves
+     */
+    private int orderMoves(Board b, int ply, int firstMove) {
+        int[] moves = moveBuffers[ply];
+        int[] keys = keyBuffers[ply];
+        int rows = b.getRows();
+        int cols = b.getCols();
+        int symmetries = symmetriesOf(b);
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int position = b.getMovePosition(row, col);
+                if (!b.isValidMove(position)) continue;
+                if (symmetries != 0 && hasLowerEquivalent(position, rows, cols, symmetries)) continue;
+
+                int key = position == firstMove ? Integer.MAX_VALUE : lineUrgency(b, row, col);
+
+                // Insertion sort, keeping the lower position first on ties so the search is deterministic
+                int i = count++;
+                while (i > 0 && keys[i - 1] < key) {
+                    keys[i] = keys[i - 1];
+                    moves[i] = moves[i - 1];
+                    i--;
+                }
+                keys[i] = key;
+                moves[i] = position;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return A bit set, indexed by symmetry ordinal, of the non-identity symmetries that leave the board unchanged
+     */
+    private static int symmetriesOf(Board b) {
+        int symmetries = 0;
+        for (int i = 1; i < Symmetry.COUNT; i++) {
+            if (b.isSymmetricUnder(Symmetry.fromOrdinal(i))) symmetries |= 1 << i;
+        }
+        return symmetries;
+    }
+
+    private static boolean hasLowerEquivalent(int position, int rows, int cols, int symmetries) {
+        for (int i = 1; i < Symmetry.COUNT; i++) {
+            if ((symmetries & (1 << i)) != 0 && Symmetry.fromOrdinal(i).apply(position, rows, cols) < position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureCapacity(int plies, int cells) {
+        if (moveBuffers.length >= plies && moveBuffers[0].length >= cells) return;
+        moveBuffers = new int[plies][cells];
+        keyBuffers = new int[plies][cells];
+    }
+
+    static Board.PlayerId opponent(Board.PlayerId playerId) {
+        return playerId == Board.PlayerId.PLAYER_ONE ? Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+    }
+}
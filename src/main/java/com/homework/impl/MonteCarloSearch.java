@@ -0,0 +1,281 @@
+package com.homework.impl;
+
+import com.homework.Board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo tree search using UCT (upper confidence bounds applied to trees). Each iteration walks down the tree
+ * picking the child with the best balance of win rate and uncertainty, adds the children of the leaf it reaches, then
+ * finishes the game from there with uniformly random moves, the same policy the RANDOM player uses. The result is
+ * credited to every node on the way back up. Unlike minimax, it needs no evaluation function and copes with boards too
+ * large to search exhaustively.
+ *
+ * The tree is stored in parallel int arrays indexed by node rather than as node objects, and moves are played and
+ * undone on a single board, so an iteration does not allocate.
+ *
+ * With more than one thread the search uses root parallelization: every thread grows its own tree on its own copy of
+ * the board, and the root visit counts are summed at the end. Threads never share a tree, so no locking or virtual
+ * loss is needed, and with an iteration budget the result only depends on the seed, not on thread timing.
+ */
+class MonteCarloSearch {
+    // Weight of the exploration term. sqrt(2) is the standard choice for rewards in [0, 1].
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // Tree nodes allocated up front and the most a single tree may grow to. Past the limit leaves are no longer
+    // expanded, but iterations still run playouts from them.
+    private static final int INITIAL_NODES = 1 << 10;
+    private static final int MAX_NODES = 1 << 22;
+
+    // Iterations run between checks of the clock when searching against a deadline
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private final int threads;
+    private final Tree[] trees;
+    private ForkJoinPool pool = null;
+
+    private long playouts = 0;
+
+    /**
+     * @param threads The number of threads to run playouts on. Must be >= 1.
+     */
+    MonteCarloSearch(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Must use at least one thread.");
+        this.threads = threads;
+        this.trees = new Tree[threads];
+        for (int i = 0; i < threads; i++) {
+            trees[i] = new Tree();
+        }
+    }
+
+    /**
+     * Shut down the pool the trees grow on. A later parallel search creates a new one.
+     */
+    void close() {
+        if (pool == null) return;
+        pool.shutdown();
+        pool = null;
+    }
+
+    /**
+     * Search for the best move for the given player.
+     *
+     * @param b             The current board. With a single thread it is modified during the search but restored
+     *                      before returning. With more threads it is only copied.
+     * @param playerId      The player to move
+     * @param iterations    The number of playouts to run across all threads. Must be >= 1.
+     * @param deadlineNanos The System.nanoTime after which to stop early, or 0 to run every iteration
+     * @param random        Source of the seeds for every thread's playouts
+     * @return The most visited move
+     */
+    int findBestMove(Board b, final Board.PlayerId playerId, int iterations, final long deadlineNanos,
+                     SplittableRandom random) {
+        if (iterations < 1) throw new IllegalArgumentException("Must run at least one playout.");
+
+        if (threads == 1) {
+            trees[0].search(b, playerId, iterations, deadlineNanos, random);
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(threads);
+            for (int i = 0; i < threads; i++) {
+                // Split the budget evenly, handing the remainder to the first threads
+                final int share = iterations / threads + (i < iterations % threads ? 1 : 0);
+                if (share == 0) {
+                    trees[i].reset();
+                    continue;
+                }
+                final Tree tree = trees[i];
+                final Board copy = new Board(b);
+                final SplittableRandom threadRandom = random.split();
+                tasks.add(ForkJoinTask.adapt(new Runnable() {
+                    @Override
+                    public void run() {
+                        tree.search(copy, playerId, share, deadlineNanos, threadRandom);
+                    }
+                }));
+            }
+            if (pool == null) pool = new ForkJoinPool(threads);
+            for (ForkJoinTask<?> task : tasks) {
+                pool.execute(task);
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        playouts = 0;
+        long[] visitsByMove = new long[b.getCellCount() + 1];
+        for (Tree tree : trees) {
+            playouts += tree.playouts;
+            tree.addRootVisits(visitsByMove);
+        }
+
+        // Pick the most visited move, the lowest such position on ties
+        int best = 0;
+        for (int position = 1; position < visitsByMove.length; position++) {
+            if (visitsByMove[position] > visitsByMove[best]) best = position;
+        }
+        return best > 0 ? best : b.getFreeCell(0);
+    }
+
+    /**
+     * @return The number of playouts run by the most recent search, across all threads
+     */
+    long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * A single search tree. Node 0 is the root. The children of a node occupy the contiguous block
+     * [firstChild, firstChild + childCount), and a firstChild of 0 means the node has not been expanded yet.
+     * Rewards are counted in half points, from the point of view of the player who made the node's move: 2 for a win,
+     * 1 for a draw and 0 for a loss.
+     */
+    private static final class Tree {
+        private int[] moves = new int[INITIAL_NODES];
+        private int[] firstChild = new int[INITIAL_NODES];
+        private int[] childCount = new int[INITIAL_NODES];
+        private int[] visits = new int[INITIAL_NODES];
+        private int[] rewards = new int[INITIAL_NODES];
+        private int nodeCount = 0;
+
+        // Nodes visited by the current iteration, root first
+        private int[] path = new int[0];
+
+        private long playouts = 0;
+
+        void reset() {
+            // Only the root needs clearing, since nodes are reinitialized as they are allocated
+            nodeCount = 1;
+            firstChild[0] = 0;
+            childCount[0] = 0;
+            visits[0] = 0;
+            rewards[0] = 0;
+            playouts = 0;
+        }
+
+        void search(Board b, Board.PlayerId playerId, int iterations, long deadlineNanos, SplittableRandom random) {
+            reset();
+            if (path.length < b.getCellCount() + 1) path = new int[b.getCellCount() + 1];
+
+            for (int i = 0; i < iterations; i++) {
+                if (deadlineNanos != 0 && i % DEADLINE_CHECK_INTERVAL == 0 && i > 0 &&
+                        System.nanoTime() - deadlineNanos > 0) {
+                    break;
+                }
+                iterate(b, playerId, random);
+                playouts++;
+            }
+        }
+
+        private void iterate(Board b, Board.PlayerId playerId, SplittableRandom random) {
+            // Selection: descend through expanded nodes
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            Board.PlayerId toMove = playerId;
+            while (firstChild[node] != 0) {
+                node = select(node);
+                b.move(moves[node], toMove);
+                path[++depth] = node;
+                toMove = MinimaxSearch.opponent(toMove);
+            }
+
+            // Expansion: add every move from the leaf, unless the game is over there, and step into one of them
+            if (!b.isBoardWon() && b.validMovesRemain() && expand(node, b)) {
+                node = firstChild[node] + random.nextInt(childCount[node]);
+                b.move(moves[node], toMove);
+                path[++depth] = node;
+                toMove = MinimaxSearch.opponent(toMove);
+            }
+
+            // Simulation: finish the game with random moves
+            int played = 0;
+            while (!b.isBoardWon() && b.validMovesRemain()) {
+                b.move(b.getFreeCell(random.nextInt(b.getFreeCellCount())), toMove);
+                toMove = MinimaxSearch.opponent(toMove);
+                played++;
+            }
+            Board.PlayerId winner = b.isBoardWon() ? MinimaxSearch.opponent(toMove) : null;
+            for (int i = 0; i < played; i++) {
+                b.unmove();
+            }
+
+            // Backpropagation: the root's move was made by the opponent, then movers alternate down the path
+            Board.PlayerId mover = MinimaxSearch.opponent(playerId);
+            for (int i = 0; i <= depth; i++) {
+                int n = path[i];
+                visits[n]++;
+                rewards[n] += winner == null ? 1 : (winner == mover ? 2 : 0);
+                mover = MinimaxSearch.opponent(mover);
+            }
+            for (int i = 0; i < depth; i++) {
+                b.unmove();
+            }
+        }
+
+        /**
+         * @return The child of an expanded node with the highest UCT score, trying each unvisited child first
+         */
+        private int select(int node) {
+            int first = firstChild[node];
+            int end = first + childCount[node];
+            double logParentVisits = Math.log(visits[node]);
+            int best = first;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < end; child++) {
+                int n = visits[child];
+                if (n == 0) return child;
+                double score = rewards[child] / (2.0 * n) + EXPLORATION * Math.sqrt(logParentVisits / n);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Add a child for every free cell of the board.
+         * @return False if the tree is full and the node was left unexpanded
+         */
+        private boolean expand(int node, Board b) {
+            int count = b.getFreeCellCount();
+            if (nodeCount + count > moves.length && !grow(nodeCount + count)) return false;
+
+            firstChild[node] = nodeCount;
+            childCount[node] = count;
+            for (int i = 0; i < count; i++) {
+                int child = nodeCount++;
+                moves[child] = b.getFreeCell(i);
+                firstChild[child] = 0;
+                childCount[child] = 0;
+                visits[child] = 0;
+                rewards[child] = 0;
+            }
+            return true;
+        }
+
+        private boolean grow(int required) {
+            if (required > MAX_NODES) return false;
+            int capacity = Math.min(MAX_NODES, Math.max(required, moves.length * 2));
+            moves = Arrays.copyOf(moves, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            visits = Arrays.copyOf(visits, capacity);
+            rewards = Arrays.copyOf(rewards, capacity);
+            return true;
+        }
+
+        void addRootVisits(long[] visitsByMove) {
+            int first = firstChild[0];
+            for (int child = first; child < first + childCount[0]; child++) {
+                visitsByMove[moves[child]] += visits[child];
+            }
+        }
+    }
+}
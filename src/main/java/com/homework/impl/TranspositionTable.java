@@ -0,0 +1,177 @@
+package com.homework.impl;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of previously searched positions, keyed by the board's Zobrist hash. Entries live in two
+ * parallel primitive arrays, so the table never allocates after construction and its memory use is fixed up front.
+ *
+ * Each entry packs the search result into a single long:
+ *   bits  0-23  best move found at the position
+ *   bits 24-47  score (signed)
+ *   bits 48-55  depth the position was searched to
+ *   bits 56-57  bound type (exact, lower or upper)
+ *   bits 58-63  generation the entry was written in
+ * An entry of 0 is empty, which is why bound types start at 1. Entries from an earlier generation are treated as
+ * empty, which lets clear() empty the table without touching the arrays.
+ *
+ * The table may be shared by searches on several threads without locking. Each slot stores the key XORed with the
+ * data, so a probe that reads a key and data written by two different stores finds a key that matches nothing and
+ * treats the slot as empty, as in Hyatt's lockless transposition table. The probe and hit counts are not synchronized,
+ * so they are approximate while several threads share the table.
+ */
+public class TranspositionTable {
+    public enum ReplacementPolicy {
+        // Keep whichever of the old and new entries was searched deeper, since it saved more work
+        DEPTH_PREFERRED,
+        // Always overwrite with the newest entry
+        ALWAYS_REPLACE
+    }
+
+    // Memory used by a single entry: one long for the key and one for the packed data
+    static final int BYTES_PER_ENTRY = 16;
+
+    static final int EXACT = 1;
+    static final int LOWER_BOUND = 2;
+    static final int UPPER_BOUND = 3;
+
+    // Returned by probe when the position is not in the table
+    static final long NOT_FOUND = 0;
+
+    private static final int MOVE_BITS = 24;
+    private static final int SCORE_BITS = 24;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final int GENERATION_SHIFT = 58;
+    private static final int MAX_GENERATION = 63;
+
+    // Each key XORed with its slot's data, so torn entries written by racing threads never match
+    private final long[] keys;
+    private final long[] data;
+    private final int indexMask;
+    private final ReplacementPolicy policy;
+
+    // Generation stamped on new entries, from 1 to MAX_GENERATION
+    private long generation = 1;
+
+    private long probes = 0;
+    private long hits = 0;
+
+    /**
+     * @param memoryBudgetBytes The maximum number of bytes the table may use. The table holds the largest power of
+     *                          two number of entries that fits.
+     * @param policy            How to handle two positions competing for the same slot
+     * @throws IllegalArgumentException if the budget cannot hold a single entry or the policy is null
+     */
+    public TranspositionTable(long memoryBudgetBytes, ReplacementPolicy policy) {
+        if (memoryBudgetBytes < BYTES_PER_ENTRY) {
+            throw new IllegalArgumentException("Memory budget must hold at least one entry of " + BYTES_PER_ENTRY +
+                    " bytes.");
+        }
+        if (policy == null) throw new IllegalArgumentException("Replacement policy may not be null.");
+
+        int entries = Integer.highestOneBit((int) Math.min(memoryBudgetBytes / BYTES_PER_ENTRY, 1 << 30));
+        this.keys = new long[entries];
+        this.data = new long[entries];
+        this.indexMask = entries - 1;
+        this.policy = policy;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The number of lookups made against the table
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return The number of lookups that found their position in the table
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Discard every entry. This is O(1): it starts a new generation, and only physically wipes the arrays once every
+     * MAX_GENERATION calls when the generation counter wraps.
+     */
+    public void clear() {
+        if (++generation > MAX_GENERATION) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(data, NOT_FOUND);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Look up a position.
+     * @param key The position's hash
+     * @return The packed entry, or NOT_FOUND
+     */
+    long probe(long key) {
+        probes++;
+        int index = index(key);
+        long entry = data[index];
+        if ((keys[index] ^ entry) != key || !isCurrent(entry)) return NOT_FOUND;
+        hits++;
+        return entry;
+    }
+
+    /**
+     * Record the result of searching a position, subject to the replacement policy.
+     * @param key   The position's hash
+     * @param depth The depth the position was searched to
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param score The score found
+     * @param move  The best move found
+     */
+    void store(long key, int depth, int bound, int score, int move) {
+        int index = index(key);
+        long existing = data[index];
+        if (policy == ReplacementPolicy.DEPTH_PREFERRED && isCurrent(existing) && (keys[index] ^ existing) != key &&
+                depth(existing) > depth) {
+            return;
+        }
+
+        long entry = (move & MOVE_MASK) |
+                (((long) score & ((1L << SCORE_BITS) - 1)) << MOVE_BITS) |
+                ((long) Math.min(depth, 255) << (MOVE_BITS + SCORE_BITS)) |
+                ((long) bound << (MOVE_BITS + SCORE_BITS + 8)) |
+                (generation << GENERATION_SHIFT);
+        keys[index] = key ^ entry;
+        data[index] = entry;
+    }
+
+    private boolean isCurrent(long entry) {
+        return entry != NOT_FOUND && (entry >>> GENERATION_SHIFT) == generation;
+    }
+
+    static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    static int score(long entry) {
+        // Shift the score to the top of the long and back down to sign extend it
+        return (int) ((entry << (64 - MOVE_BITS - SCORE_BITS)) >> (64 - SCORE_BITS));
+    }
+
+    static int depth(long entry) {
+        return (int) ((entry >>> (MOVE_BITS + SCORE_BITS)) & 0xFF);
+    }
+
+    static int bound(long entry) {
+        return (int) ((entry >>> (MOVE_BITS + SCORE_BITS + 8)) & 0x3);
+    }
+
+    private int index(long key) {
+        // The low bits of a Zobrist hash are already uniformly distributed
+        return (int) key & indexMask;
+    }
+}
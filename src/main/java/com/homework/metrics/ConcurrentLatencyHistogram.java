@@ -0,0 +1,53 @@
+package com.homework.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A latency histogram that any number of threads can record into with little contention. Values are recorded into one
+ * of a fixed number of LatencyHistogram stripes, picked by thread id, so threads rarely share a stripe's lock, and
+ * readers merge the stripes into a snapshot.
+ *
+ * Each stripe takes about 30KB and is only created once a thread records into it. Their number is fixed by the number
+ * of processors, so memory stays bounded however many threads come and go.
+ *
+ * A snapshot taken while threads are recording may be off by the values recorded during the merge.
+ */
+public class ConcurrentLatencyHistogram {
+    // At least twice the processors, rounded up to a power of two so that a thread id can be masked into a stripe
+    private static final int STRIPES =
+            Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+
+    private final AtomicReferenceArray<LatencyHistogram> stripes = new AtomicReferenceArray<LatencyHistogram>(STRIPES);
+
+    /**
+     * @param nanos A latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        LatencyHistogram stripe = stripe((int) Thread.currentThread().getId() & (STRIPES - 1));
+        synchronized (stripe) {
+            stripe.record(nanos);
+        }
+    }
+
+    /**
+     * @return A histogram of every value recorded so far by any thread
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (int i = 0; i < STRIPES; i++) {
+            LatencyHistogram stripe = stripes.get(i);
+            if (stripe == null) continue;
+            synchronized (stripe) {
+                total.add(stripe);
+            }
+        }
+        return total;
+    }
+
+    private LatencyHistogram stripe(int index) {
+        LatencyHistogram stripe = stripes.get(index);
+        if (stripe != null) return stripe;
+        stripes.compareAndSet(index, null, new LatencyHistogram());
+        return stripes.get(index);
+    }
+}
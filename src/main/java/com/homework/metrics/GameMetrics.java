@@ -0,0 +1,223 @@
+package com.homework.metrics;
+
+import com.homework.impl.AIPlayer.Algorithm;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide counters and latency histograms for games and AI decisions, recorded by GameRunner, AIPlayer and the
+ * GameServer as they play. Counters are LongAdders, which stripe increments across cells so that threads playing in
+ * parallel don't contend on a single word, and decision times go into a ConcurrentLatencyHistogram per algorithm.
+ * Recording a metric therefore costs a few nanoseconds and never blocks.
+ *
+ * Read the metrics through the getters, over JMX once registerMBean has been called, or as periodic text from a
+ * MetricsReporter.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    public static final String OBJECT_NAME = "com.homework:type=GameMetrics";
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private final LongAdder movesApplied = new LongAdder();
+    private final LongAdder invalidMoves = new LongAdder();
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final LongAdder gamesDrawn = new LongAdder();
+    private final LongAdder gamesForfeited = new LongAdder();
+    private final LongAdder nodesSearched = new LongAdder();
+    private final LongAdder playouts = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LongAdder tablebaseHits = new LongAdder();
+    private final LongAdder tablebaseMisses = new LongAdder();
+
+    // Time to choose a move, indexed by algorithm ordinal
+    private final ConcurrentLatencyHistogram[] decisionLatencies =
+            new ConcurrentLatencyHistogram[Algorithm.values().length];
+
+    GameMetrics() {
+        for (int i = 0; i < decisionLatencies.length; i++) {
+            decisionLatencies[i] = new ConcurrentLatencyHistogram();
+        }
+    }
+
+    /**
+     * @return The metrics every part of the game records into
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the metrics with the platform MBean server, if they are not registered already.
+     * @throws JMException if registration fails
+     */
+    public static synchronized void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) server.registerMBean(INSTANCE, name);
+    }
+
+    public void recordMove() {
+        movesApplied.increment();
+    }
+
+    public void recordInvalidMove() {
+        invalidMoves.increment();
+    }
+
+    /**
+     * @param drawn     True if neither player won
+     * @param forfeited True if a player lost by making too many invalid moves
+     */
+    public void recordGame(boolean drawn, boolean forfeited) {
+        gamesCompleted.increment();
+        if (drawn) gamesDrawn.increment();
+        if (forfeited) gamesForfeited.increment();
+    }
+
+    /**
+     * Record one move chosen by an AI.
+     * @param algorithm   The algorithm that chose it
+     * @param nanos       The time it took
+     * @param nodes       The number of positions searched
+     * @param playouts    The number of MCTS playouts run
+     * @param tableProbes The number of transposition table lookups made
+     * @param tableHits   The number of those lookups that found their position
+     */
+    public void recordDecision(Algorithm algorithm, long nanos, long nodes, long playouts, long tableProbes,
+                               long tableHits) {
+        decisionLatencies[algorithm.ordinal()].record(nanos);
+        // Most algorithms search nothing, so skip the adders rather than add 0 to them
+        if (nodes != 0) nodesSearched.add(nodes);
+        if (playouts != 0) this.playouts.add(playouts);
+        if (tableProbes != 0) {
+            this.tableProbes.add(tableProbes);
+            this.tableHits.add(tableHits);
+        }
+    }
+
+    /**
+     * @param hit True if a tablebase answered the position, false if the move had to be searched for instead
+     */
+    public void recordTablebaseLookup(boolean hit) {
+        if (hit) tablebaseHits.increment();
+        else tablebaseMisses.increment();
+    }
+
+    @Override
+    public long getMovesApplied() {
+        return movesApplied.sum();
+    }
+
+    @Override
+    public long getInvalidMoves() {
+        return invalidMoves.sum();
+    }
+
+    @Override
+    public long getGamesCompleted() {
+        return gamesCompleted.sum();
+    }
+
+    @Override
+    public long getGamesDrawn() {
+        return gamesDrawn.sum();
+    }
+
+    @Override
+    public long getGamesForfeited() {
+        return gamesForfeited.sum();
+    }
+
+    @Override
+    public long getNodesSearched() {
+        return nodesSearched.sum();
+    }
+
+    @Override
+    public long getPlayouts() {
+        return playouts.sum();
+    }
+
+    @Override
+    public long getTableProbes() {
+        return tableProbes.sum();
+    }
+
+    @Override
+    public long getTableHits() {
+        return tableHits.sum();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        return rate(tableHits.sum(), tableProbes.sum());
+    }
+
+    @Override
+    public double getTablebaseHitRate() {
+        long hits = tablebaseHits.sum();
+        return rate(hits, hits + tablebaseMisses.sum());
+    }
+
+    /**
+     * @return Every decision time recorded for the algorithm so far
+     */
+    public LatencyHistogram getDecisionLatencies(Algorithm algorithm) {
+        return decisionLatencies[algorithm.ordinal()].snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getDecisionCounts() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Algorithm algorithm : Algorithm.values()) {
+            counts.put(algorithm.name(), getDecisionLatencies(algorithm).getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getDecisionP50Millis() {
+        return decisionPercentileMillis(50);
+    }
+
+    @Override
+    public Map<String, Double> getDecisionP99Millis() {
+        return decisionPercentileMillis(99);
+    }
+
+    private Map<String, Double> decisionPercentileMillis(double percentile) {
+        Map<String, Double> millis = new TreeMap<String, Double>();
+        for (Algorithm algorithm : Algorithm.values()) {
+            long nanos = getDecisionLatencies(algorithm).getPercentile(percentile);
+            millis.put(algorithm.name(), nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return millis;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("games %d (drawn %d, forfeited %d), moves %d, invalid moves %d%n",
+                getGamesCompleted(), getGamesDrawn(), getGamesForfeited(), getMovesApplied(), getInvalidMoves()));
+        text.append(String.format("nodes %d, playouts %d, table hit rate %.1f%%, tablebase hit rate %.1f%%%n",
+                getNodesSearched(), getPlayouts(), 100 * getTableHitRate(), 100 * getTablebaseHitRate()));
+        for (Algorithm algorithm : Algorithm.values()) {
+            LatencyHistogram latencies = getDecisionLatencies(algorithm);
+            if (latencies.getCount() == 0) continue;
+            text.append(String.format("%-7s: %s%n", algorithm, latencies));
+        }
+        return text.toString();
+    }
+
+    private static double rate(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+}
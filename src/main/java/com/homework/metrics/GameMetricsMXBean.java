@@ -0,0 +1,57 @@
+package com.homework.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of GameMetrics, registered with the platform MBean server under GameMetrics.OBJECT_NAME so
+ * that jconsole, VisualVM or any JMX client can watch a running tournament or server.
+ */
+public interface GameMetricsMXBean {
+    long getMovesApplied();
+
+    long getInvalidMoves();
+
+    long getGamesCompleted();
+
+    long getGamesDrawn();
+
+    long getGamesForfeited();
+
+    long getNodesSearched();
+
+    long getPlayouts();
+
+    long getTableProbes();
+
+    long getTableHits();
+
+    /**
+     * @return The fraction of transposition table probes that found their position, or 0 before any probes
+     */
+    double getTableHitRate();
+
+    /**
+     * @return The fraction of PERFECT moves answered from a tablebase rather than by falling back to search
+     */
+    double getTablebaseHitRate();
+
+    /**
+     * @return The number of moves each AI algorithm has chosen, by algorithm name
+     */
+    Map<String, Long> getDecisionCounts();
+
+    /**
+     * @return The median time each AI algorithm has taken to choose a move, in milliseconds, by algorithm name
+     */
+    Map<String, Double> getDecisionP50Millis();
+
+    /**
+     * @return The 99th percentile time each AI algorithm has taken to choose a move, in milliseconds
+     */
+    Map<String, Double> getDecisionP99Millis();
+
+    /**
+     * @return Every metric as text, as printed by MetricsReporter
+     */
+    String dump();
+}
@@ -0,0 +1,58 @@
+package com.homework.metrics;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints a dump of the game metrics at a fixed interval on a background daemon thread, for watching throughput in a
+ * log without a JMX client.
+ */
+public class MetricsReporter implements Closeable {
+    // System property giving the number of seconds between dumps for the tournament and server
+    public static final String INTERVAL_PROPERTY = "tictactoe.metrics.interval";
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param metrics         The metrics to report
+     * @param out             Where to print them
+     * @param intervalSeconds The time between dumps. Must be >= 1.
+     */
+    public MetricsReporter(final GameMetrics metrics, final PrintStream out, long intervalSeconds) {
+        if (intervalSeconds < 1) throw new IllegalArgumentException("Interval must be at least one second.");
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                out.print(metrics.dump());
+                out.flush();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Start reporting the global metrics to standard out if INTERVAL_PROPERTY is set.
+     * @return The running reporter, or null if the property is not set
+     */
+    public static MetricsReporter fromSystemProperty() {
+        String interval = System.getProperty(INTERVAL_PROPERTY);
+        if (interval == null) return null;
+        return new MetricsReporter(GameMetrics.get(), System.out, Long.parseLong(interval));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
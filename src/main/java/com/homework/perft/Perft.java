@@ -0,0 +1,250 @@
+package com.homework.perft;
+
+import com.homework.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks every line of play from a position to a fixed depth and counts what it finds, in the manner of the perft tools
+ * chess engines use. The counts are exact, so they serve as a check on any change to how Board makes, unmakes and
+ * judges moves, and the walk itself measures raw make/unmake throughput.
+ *
+ * The top plies are split into fork-join tasks, each on its own copy of the board. Below them every task walks its
+ * subtree by making and unmaking moves on that copy.
+ *
+ * Run with:
+ *   java -cp target/tictactoe-1.0-SNAPSHOT.jar com.homework.perft.Perft [boardSize] [winLength] [depth] [threads]
+ *       [distinct]
+ * For example, the full 3x3 game tree has 255168 games.
+ */
+public class Perft {
+    // Plies split into parallel tasks. 2 gives n * (n - 1) tasks on an n cell board, plenty to balance the load.
+    private static final int SPLIT_PLIES = 2;
+
+    private final int threads;
+    private final boolean countDistinct;
+
+    /**
+     * @param threads       The number of threads to walk the tree on. Must be >= 1.
+     * @param countDistinct True to also count distinct terminal positions, which keeps a hash of every one in memory
+     */
+    public Perft(int threads, boolean countDistinct) {
+        if (threads < 1) throw new IllegalArgumentException("Must use at least one thread.");
+        this.threads = threads;
+        this.countDistinct = countDistinct;
+    }
+
+    /**
+     * Count every line of play from the board's position, up to depth more moves. The board is left as it was.
+     * @param b     The position to start from. Players alternate from whoever did not make the last move.
+     * @param depth The number of plies to look ahead. Must be >= 0.
+     */
+    public Result count(Board b, int depth) {
+        if (depth < 0) throw new IllegalArgumentException("Depth must not be negative.");
+        Set<Long> terminalPositions = countDistinct ? ConcurrentHashMap.<Long>newKeySet() : null;
+
+        long start = System.nanoTime();
+        Result result;
+        if (depth == 0 || b.isBoardWon() || !b.validMovesRemain()) {
+            result = new Result();
+            result.nodes = 1;
+            result.leaves = depth == 0 && !b.isBoardWon() && b.validMovesRemain() ? 1 : 0;
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                result = pool.invoke(new PerftTask(new Board(b), toMove(b), depth, 0, terminalPositions));
+            } finally {
+                pool.shutdown();
+            }
+            result.nodes++; // The root itself
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        result.distinctTerminalPositions = countDistinct ? terminalPositions.size() : -1;
+        return result;
+    }
+
+    private static Board.PlayerId toMove(Board b) {
+        if (b.getMoveCount() == 0) return Board.PlayerId.PLAYER_ONE;
+        return b.getCellOwner(b.getMove(b.getMoveCount() - 1)) == Board.PlayerId.PLAYER_ONE ?
+                Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+    }
+
+    private static Board.PlayerId opponent(Board.PlayerId playerId) {
+        return playerId == Board.PlayerId.PLAYER_ONE ? Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+    }
+
+    /**
+     * Counts the subtree below a position that is neither won nor full. Splits into a task per move near the root and
+     * walks the subtree directly below that.
+     */
+    private static class PerftTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final Board.PlayerId mover;
+        private final int depth;
+        private final int ply;
+        private final Set<Long> terminalPositions;
+
+        PerftTask(Board board, Board.PlayerId mover, int depth, int ply, Set<Long> terminalPositions) {
+            this.board = board;
+            this.mover = mover;
+            this.depth = depth;
+            this.ply = ply;
+            this.terminalPositions = terminalPositions;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = new Result();
+            if (ply >= SPLIT_PLIES || depth == 1) {
+                walk(board, mover, depth, result);
+                return result;
+            }
+
+            List<PerftTask> children = new ArrayList<PerftTask>(board.getFreeCellCount());
+            for (int i = 0; i < board.getFreeCellCount(); i++) {
+                int position = board.getFreeCell(i);
+                Board child = new Board(board);
+                child.move(position, mover);
+                result.nodes++;
+                if (!countTerminal(child, mover, result)) {
+                    children.add(new PerftTask(child, opponent(mover), depth - 1, ply + 1, terminalPositions));
+                }
+            }
+            invokeAll(children);
+            for (PerftTask child : children) {
+                result.add(child.join());
+            }
+            return result;
+        }
+
+        /**
+         * Count every position below this one by making and unmaking moves on the board, which is restored exactly,
+         * free cell order included, so the free cells can be iterated by index while moves are made.
+         */
+        private void walk(Board b, Board.PlayerId player, int depth, Result result) {
+            Board.PlayerId next = opponent(player);
+            int free = b.getFreeCellCount();
+            for (int i = 0; i < free; i++) {
+                b.move(b.getFreeCell(i), player);
+                result.nodes++;
+                if (!countTerminal(b, player, result)) {
+                    if (depth == 1) result.leaves++;
+                    else walk(b, next, depth - 1, result);
+                }
+                b.unmove();
+            }
+        }
+
+        /**
+         * @return True if the move just made by the player ended the game, in which case its result has been counted
+         */
+        private boolean countTerminal(Board b, Board.PlayerId player, Result result) {
+            if (b.isBoardWon()) {
+                if (player == Board.PlayerId.PLAYER_ONE) result.playerOneWins++;
+                else result.playerTwoWins++;
+            } else if (!b.validMovesRemain()) {
+                result.draws++;
+            } else {
+                return false;
+            }
+            if (terminalPositions != null) terminalPositions.add(b.getZobristHash());
+            return true;
+        }
+    }
+
+    /**
+     * Counts from one walk of the game tree.
+     */
+    public static class Result {
+        private long nodes = 0;
+        private long leaves = 0;
+        private long playerOneWins = 0;
+        private long playerTwoWins = 0;
+        private long draws = 0;
+        private long distinctTerminalPositions = -1;
+        private long elapsedNanos = 0;
+
+        void add(Result other) {
+            nodes += other.nodes;
+            leaves += other.leaves;
+            playerOneWins += other.playerOneWins;
+            playerTwoWins += other.playerTwoWins;
+            draws += other.draws;
+        }
+
+        /**
+         * @return The number of positions visited, including the starting position
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return The number of lines of play that reached the depth limit with the game still in progress
+         */
+        public long getLeaves() {
+            return leaves;
+        }
+
+        /**
+         * @return The number of lines of play that ended the game within the depth limit
+         */
+        public long getGames() {
+            return playerOneWins + playerTwoWins + draws;
+        }
+
+        public long getPlayerOneWins() {
+            return playerOneWins;
+        }
+
+        public long getPlayerTwoWins() {
+            return playerTwoWins;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * @return The number of distinct positions the games ended in, or -1 if they were not counted
+         */
+        public long getDistinctTerminalPositions() {
+            return distinctTerminalPositions;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getNodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d nodes, %d leaves, %d games (X won %d, O won %d, drawn %d)%s in %.2f s: " +
+                            "%.0f nodes/sec", nodes, leaves, getGames(), playerOneWins, playerTwoWins, draws,
+                    distinctTerminalPositions < 0 ? "" : ", " + distinctTerminalPositions + " distinct end positions",
+                    elapsedNanos / 1e9, getNodesPerSecond());
+        }
+    }
+
+    public static void main(String args[]) {
+        int boardSize = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int winLength = args.length > 1 ? Integer.parseInt(args[1]) : boardSize;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : boardSize * boardSize;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        boolean distinct = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+        Board b = new Board(boardSize, boardSize, winLength);
+        System.out.println("Perft " + boardSize + "x" + boardSize + " (" + winLength + " in a row) to depth " + depth);
+        System.out.println(new Perft(threads, distinct).count(b, depth));
+    }
+}
@@ -0,0 +1,207 @@
+package com.homework.record;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer.Algorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes statistics over archived game logs without replaying any games. Each log is memory mapped and split into
+ * chunks of whole blocks, which are decoded in parallel on a fork-join pool and their totals combined. Only the block
+ * headers are read up front, so a scan runs at the speed the disk and page cache can deliver the file.
+ *
+ * Run with:
+ *   java -cp target/tictactoe-1.0-SNAPSHOT.jar com.homework.record.GameLogAnalyzer logFile [logFile...]
+ */
+public class GameLogAnalyzer {
+    // Blocks are grouped into chunks of about this size, each mapped and decoded by a single task
+    private static final long CHUNK_BYTES = 64L * 1024 * 1024;
+
+    private final int threads;
+
+    /**
+     * @param threads The number of threads to decode chunks on. Must be >= 1.
+     */
+    public GameLogAnalyzer(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Must use at least one thread.");
+        this.threads = threads;
+    }
+
+    /**
+     * Scan one or more logs of games played on boards with the same number of cells.
+     * @throws IOException if a log can't be read or is corrupt
+     * @throws IllegalArgumentException if no logs are given or the logs are for boards of different sizes
+     */
+    public GameLogStats analyze(Path... paths) throws IOException {
+        if (paths.length == 0) throw new IllegalArgumentException("No game logs to analyze.");
+
+        GameLogStats total = null;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Path path : paths) {
+                GameLogStats stats = analyze(pool, path);
+                if (total == null) total = stats;
+                else total.add(stats);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return total;
+    }
+
+    private GameLogStats analyze(ForkJoinPool pool, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, 4096));
+            GameLogFormat.Header header = GameLogFormat.Header.read(start);
+
+            List<long[]> chunks = chunks(channel, start.position(), size);
+            try {
+                return pool.invoke(new ChunksTask(channel, header, chunks, 0, chunks.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Walk the block headers and group consecutive blocks into chunks.
+     * @return The start and end offset of each chunk
+     */
+    private static List<long[]> chunks(FileChannel channel, long offset, long size) throws IOException {
+        List<long[]> chunks = new ArrayList<long[]>();
+        ByteBuffer blockHeader = ByteBuffer.allocate(GameLogFormat.BLOCK_HEADER_BYTES);
+        long chunkStart = offset;
+        while (offset < size) {
+            blockHeader.clear();
+            while (blockHeader.hasRemaining() && channel.read(blockHeader, offset + blockHeader.position()) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            int length = blockHeader.getInt(0);
+            long end = offset + GameLogFormat.BLOCK_HEADER_BYTES + length;
+            if (blockHeader.hasRemaining() || length < 0 || end > size) {
+                throw new IOException("Truncated game log at offset " + offset);
+            }
+            if (end - chunkStart > CHUNK_BYTES && offset > chunkStart) {
+                chunks.add(new long[] {chunkStart, offset});
+                chunkStart = offset;
+            }
+            offset = end;
+        }
+        if (offset > chunkStart) chunks.add(new long[] {chunkStart, offset});
+        return chunks;
+    }
+
+    /**
+     * Decodes a range of chunks, splitting the range in half until a single chunk is left.
+     */
+    private static class ChunksTask extends RecursiveTask<GameLogStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final GameLogFormat.Header header;
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+
+        ChunksTask(FileChannel channel, GameLogFormat.Header header, List<long[]> chunks, int from, int to) {
+            this.channel = channel;
+            this.header = header;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GameLogStats compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunksTask left = new ChunksTask(channel, header, chunks, from, middle);
+                left.fork();
+                GameLogStats stats = new ChunksTask(channel, header, chunks, middle, to).compute();
+                stats.add(left.join());
+                return stats;
+            }
+
+            GameLogStats stats = new GameLogStats(header.rows * header.cols);
+            if (from == to) return stats;
+            try {
+                long[] chunk = chunks.get(from);
+                decode(channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]), chunk[0], header,
+                        stats);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Decode every record of the blocks in a buffer.
+     * @param offset The offset in the file of the start of the buffer
+     */
+    private static void decode(ByteBuffer buffer, long offset, GameLogFormat.Header header, GameLogStats stats)
+            throws IOException {
+        int end = buffer.limit();
+        while (buffer.hasRemaining()) {
+            // Whole blocks were checked to be in the file when chunking, so the block header is too
+            int blockEnd = buffer.position() + GameLogFormat.BLOCK_HEADER_BYTES + buffer.getInt();
+            int records = buffer.getInt();
+            // Stop a corrupt record count from decoding into the next block
+            buffer.limit(blockEnd);
+            for (int i = 0; i < records; i++) {
+                GameLogFormat.require(buffer, 3, offset);
+                Algorithm playerOne = header.algorithm(buffer.get() & 0xFF);
+                Algorithm playerTwo = header.algorithm(buffer.get() & 0xFF);
+                int flags = buffer.get();
+                int moveCount = GameLogFormat.readVarint(buffer, offset);
+                if (moveCount < 0 || moveCount > buffer.remaining()) {
+                    throw new IOException("Corrupt game log record at offset " + (offset + buffer.position()));
+                }
+                int opening = 0;
+                for (int move = 0; move < moveCount; move++) {
+                    int position = GameLogFormat.readVarint(buffer, offset);
+                    if (move == 0) opening = position;
+                }
+                stats.record(playerOne, playerTwo, GameLogFormat.decodePlayer(flags & GameLogFormat.WINNER_MASK),
+                        (flags & GameLogFormat.FORFEIT) != 0,
+                        (flags & GameLogFormat.PLAYER_TWO_FIRST) != 0 ?
+                                Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE,
+                        moveCount, opening);
+            }
+            if (records < 0 || buffer.hasRemaining()) {
+                throw new IOException("Corrupt game log block at offset " + (offset + buffer.position()));
+            }
+            buffer.limit(end);
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: GameLogAnalyzer logFile [logFile...]");
+            return;
+        }
+        Path[] paths = new Path[args.length];
+        for (int i = 0; i < args.length; i++) {
+            paths[i] = Paths.get(args[i]);
+        }
+
+        long start = System.nanoTime();
+        GameLogStats stats = new GameLogAnalyzer(Runtime.getRuntime().availableProcessors()).analyze(paths);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(stats);
+        System.out.printf("Scanned %d games in %.2f s (%.0f games/sec)%n", stats.getGames(), seconds,
+                stats.getGames() / seconds);
+    }
+}
@@ -0,0 +1,169 @@
+package com.homework.record;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer.Algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of a game log, shared by the writer, the reader and the analyzer.
+ *
+ * A log starts with a header:
+ * 1) int magic number and int format version
+ * 2) int rows, int columns and int win length of the board every game was played on
+ * 3) int number of algorithm names, then each name as a short length and ASCII bytes. Records refer to algorithms by
+ *    their index in this table, so logs stay readable if algorithms are added or reordered.
+ * <p>
+ * The header is followed by blocks of records. Each block starts with an int byte length of its records and an int
+ * record count, so a scan can step from block to block without decoding records and hand blocks to different threads.
+ * Each record is:
+ * 1) byte algorithm index of player one and of player two, or NO_ALGORITHM for a player that is not an AI
+ * 2) byte flags: bits 0-1 the winner (0 for a draw, 1 for player one, 2 for player two), bit 2 set if the loser
+ *    forfeited, bit 3 set if player two moved first
+ * 3) varint number of moves, then each move's position as a varint
+ * <p>
+ * Varints store 7 bits per byte, low bits first, with the top bit set on every byte but the last. On boards of up to
+ * 127 cells each move takes a single byte, so a 3x3 game averages about 11 bytes.
+ */
+final class GameLogFormat {
+    // "TTTG"
+    static final int MAGIC = 0x54545447;
+    static final int VERSION = 1;
+
+    static final int BLOCK_HEADER_BYTES = 2 * Integer.BYTES;
+
+    static final int NO_ALGORITHM = 0xFF;
+
+    static final int WINNER_MASK = 0x3;
+    static final int FORFEIT = 0x4;
+    static final int PLAYER_TWO_FIRST = 0x8;
+
+    // Largest encoding of an int as a varint
+    static final int MAX_VARINT_BYTES = 5;
+
+    private GameLogFormat() {
+    }
+
+    static void writeVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Check that the next bytes to decode are in the buffer, so that a truncated or corrupt log fails with an
+     * IOException rather than running off the end of the buffer.
+     * @param offset The offset in the file of the start of the buffer, to report where the log is damaged
+     */
+    static void require(ByteBuffer buffer, int bytes, long offset) throws IOException {
+        if (buffer.remaining() < bytes) {
+            throw new IOException("Truncated game log at offset " + (offset + buffer.position()));
+        }
+    }
+
+    /**
+     * @param offset The offset in the file of the start of the buffer
+     */
+    static int readVarint(ByteBuffer buffer, long offset) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            require(buffer, 1, offset);
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in game log at offset " + (offset + buffer.position()));
+    }
+
+    static int encodePlayer(Board.PlayerId playerId) {
+        if (playerId == null) return 0;
+        return playerId == Board.PlayerId.PLAYER_ONE ? 1 : 2;
+    }
+
+    static Board.PlayerId decodePlayer(int code) {
+        if (code == 1) return Board.PlayerId.PLAYER_ONE;
+        if (code == 2) return Board.PlayerId.PLAYER_TWO;
+        return null;
+    }
+
+    /**
+     * @return The encoded header for a log of games on the given board, listing every algorithm
+     */
+    static ByteBuffer header(int rows, int cols, int winLength) {
+        Algorithm[] algorithms = Algorithm.values();
+        int size = 6 * Integer.BYTES;
+        for (Algorithm algorithm : algorithms) {
+            size += Short.BYTES + algorithm.name().length();
+        }
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(winLength).putInt(algorithms.length);
+        for (Algorithm algorithm : algorithms) {
+            byte[] name = algorithm.name().getBytes(StandardCharsets.US_ASCII);
+            header.putShort((short) name.length).put(name);
+        }
+        header.flip();
+        return header;
+    }
+
+    /**
+     * The board shape and algorithm table read from the start of a log.
+     */
+    static final class Header {
+        final int rows;
+        final int cols;
+        final int winLength;
+        // Algorithm for each index used by records. Null for names this version does not know.
+        final Algorithm[] algorithms;
+
+        private Header(int rows, int cols, int winLength, Algorithm[] algorithms) {
+            this.rows = rows;
+            this.cols = cols;
+            this.winLength = winLength;
+            this.algorithms = algorithms;
+        }
+
+        Algorithm algorithm(int index) {
+            return index == NO_ALGORITHM || index >= algorithms.length ? null : algorithms[index];
+        }
+
+        /**
+         * Decode a header, leaving the buffer positioned at the first block.
+         * @param buffer The start of the log
+         * @throws IOException if the buffer does not start with a valid header
+         */
+        static Header read(ByteBuffer buffer) throws IOException {
+            if (buffer.remaining() < 6 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a game log.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported game log version " + version);
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int winLength = buffer.getInt();
+            int count = buffer.getInt();
+            if (count < 0 || count > NO_ALGORITHM) {
+                throw new IOException("Corrupt game log header at offset " + (buffer.position() - Integer.BYTES));
+            }
+            Algorithm[] algorithms = new Algorithm[count];
+            for (int i = 0; i < algorithms.length; i++) {
+                require(buffer, Short.BYTES, 0);
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                require(buffer, name.length, 0);
+                buffer.get(name);
+                algorithms[i] = algorithmNamed(new String(name, StandardCharsets.US_ASCII));
+            }
+            return new Header(rows, cols, winLength, algorithms);
+        }
+
+        private static Algorithm algorithmNamed(String name) {
+            for (Algorithm algorithm : Algorithm.values()) {
+                if (algorithm.name().equals(name)) return algorithm;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.homework.record;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer.Algorithm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the games in a binary game log, one block at a time, so a log of any size can be read in a small, fixed
+ * amount of memory. The reader acts as a cursor: next moves it to the following game, whose details are then available
+ * from the getters until the next call. Nothing is allocated per game.
+ *
+ * Typical use:
+ *   try (GameLogReader reader = new GameLogReader(path)) {
+ *       while (reader.next()) {
+ *           Board b = reader.replay();
+ *           ...
+ *       }
+ *   }
+ */
+public class GameLogReader implements Closeable {
+    private final FileChannel channel;
+    private final GameLogFormat.Header header;
+
+    // Holds the current block's records, positioned at the next record
+    private ByteBuffer block = ByteBuffer.allocateDirect(GameLogWriter.BLOCK_BYTES);
+    private int blockRecordsLeft = 0;
+    // Offset in the file of the start of the current block's records, to report where a corrupt log is damaged
+    private long blockOffset = 0;
+
+    // The current game
+    private Algorithm playerOneAlgorithm;
+    private Algorithm playerTwoAlgorithm;
+    private Board.PlayerId winner;
+    private boolean forfeit;
+    private Board.PlayerId firstMover;
+    private int[] moves = new int[16];
+    private int moveCount = 0;
+
+    /**
+     * Open a log and read its header.
+     * @throws IOException if the file can't be read or is not a game log
+     */
+    public GameLogReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            // The header is small, so read it along with the start of the first block and keep what is left over
+            ByteBuffer start = ByteBuffer.allocate(4096);
+            readUpTo(start, start.capacity());
+            start.flip();
+            header = GameLogFormat.Header.read(start);
+            channel.position(channel.position() - start.remaining());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Not a game log.", e);
+        }
+        block.limit(0);
+    }
+
+    public int getRows() {
+        return header.rows;
+    }
+
+    public int getCols() {
+        return header.cols;
+    }
+
+    public int getWinLength() {
+        return header.winLength;
+    }
+
+    /**
+     * Move to the next game in the log.
+     * @return False if there are no more games
+     * @throws IOException if the log can't be read or is corrupt
+     */
+    public boolean next() throws IOException {
+        while (blockRecordsLeft == 0) {
+            if (block.hasRemaining()) {
+                throw new IOException("Corrupt game log block at offset " + (blockOffset + block.position()));
+            }
+            if (!readBlock()) return false;
+        }
+        blockRecordsLeft--;
+
+        GameLogFormat.require(block, 3, blockOffset);
+        playerOneAlgorithm = header.algorithm(block.get() & 0xFF);
+        playerTwoAlgorithm = header.algorithm(block.get() & 0xFF);
+        int flags = block.get();
+        winner = GameLogFormat.decodePlayer(flags & GameLogFormat.WINNER_MASK);
+        forfeit = (flags & GameLogFormat.FORFEIT) != 0;
+        firstMover = (flags & GameLogFormat.PLAYER_TWO_FIRST) != 0 ?
+                Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+
+        moveCount = GameLogFormat.readVarint(block, blockOffset);
+        // Every move takes at least a byte, which also stops a corrupt count from allocating a huge array
+        if (moveCount < 0 || moveCount > block.remaining()) {
+            throw new IOException("Corrupt game log record at offset " + (blockOffset + block.position()));
+        }
+        if (moves.length < moveCount) moves = new int[Math.max(moveCount, 2 * moves.length)];
+        for (int i = 0; i < moveCount; i++) {
+            moves[i] = GameLogFormat.readVarint(block, blockOffset);
+        }
+        return true;
+    }
+
+    /**
+     * @return The algorithm player one used in the current game, or null if it was not an AI
+     */
+    public Algorithm getPlayerOneAlgorithm() {
+        return playerOneAlgorithm;
+    }
+
+    /**
+     * @return The algorithm player two used in the current game, or null if it was not an AI
+     */
+    public Algorithm getPlayerTwoAlgorithm() {
+        return playerTwoAlgorithm;
+    }
+
+    /**
+     * @return The winner of the current game, or null if it was drawn
+     */
+    public Board.PlayerId getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return True if the current game ended because the loser kept making invalid moves
+     */
+    public boolean isForfeit() {
+        return forfeit;
+    }
+
+    public Board.PlayerId getFirstMover() {
+        return firstMover;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @param index The index of the move, counting from 0 for the first move of the game
+     * @return The position claimed by that move
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IllegalArgumentException("Move " + index + " was not made. Moves made: " + moveCount);
+        }
+        return moves[index];
+    }
+
+    /**
+     * @return A new board with the current game's moves played on it
+     */
+    public Board replay() {
+        Board b = new Board(header.rows, header.cols, header.winLength);
+        replay(b);
+        return b;
+    }
+
+    /**
+     * Play the current game's moves on a board, alternating players from the first mover.
+     * @param b An empty board of the log's size
+     * @throws IllegalArgumentException if a move is not valid on the board
+     */
+    public void replay(Board b) {
+        Board.PlayerId player = firstMover;
+        for (int i = 0; i < moveCount; i++) {
+            if (!b.move(moves[i], player)) {
+                throw new IllegalArgumentException("Move " + i + " to " + moves[i] + " is not valid on the board.");
+            }
+            player = player == Board.PlayerId.PLAYER_ONE ? Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read the next block into the block buffer.
+     * @return False at the end of the log
+     */
+    private boolean readBlock() throws IOException {
+        block.clear();
+        block.limit(GameLogFormat.BLOCK_HEADER_BYTES);
+        readUpTo(block, GameLogFormat.BLOCK_HEADER_BYTES);
+        if (block.position() == 0) return false;
+        if (block.position() < GameLogFormat.BLOCK_HEADER_BYTES) {
+            throw new IOException("Truncated game log at offset " + channel.position());
+        }
+        int length = block.getInt(0);
+        int count = block.getInt(Integer.BYTES);
+        blockOffset = channel.position();
+        if (length < 0 || count < 0) {
+            long headerOffset = blockOffset - GameLogFormat.BLOCK_HEADER_BYTES;
+            throw new IOException("Corrupt game log block at offset " + headerOffset);
+        }
+
+        if (block.capacity() < length) block = ByteBuffer.allocateDirect(length);
+        block.clear();
+        block.limit(length);
+        readUpTo(block, length);
+        if (block.hasRemaining()) throw new IOException("Truncated game log at offset " + channel.position());
+        block.flip();
+        blockRecordsLeft = count;
+        return true;
+    }
+
+    private void readUpTo(ByteBuffer buffer, int bytes) throws IOException {
+        while (buffer.position() < bytes && channel.read(buffer) >= 0) {
+            // Keep reading until the buffer is full or the file ends
+        }
+    }
+}
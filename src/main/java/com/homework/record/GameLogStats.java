@@ -0,0 +1,182 @@
+package com.homework.record;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer.Algorithm;
+
+/**
+ * Totals gathered from a scan of game logs: results per algorithm, results per opening move and game lengths.
+ * Partial totals from different parts of a log are combined with add.
+ */
+public class GameLogStats {
+    private final int cells;
+    private long games = 0;
+    private long moves = 0;
+    private long draws = 0;
+    private long forfeits = 0;
+
+    // Results per algorithm, over every game it played in either seat, indexed by ordinal
+    private final long[] algorithmGames = new long[Algorithm.values().length];
+    private final long[] algorithmWins = new long[Algorithm.values().length];
+    private final long[] algorithmDraws = new long[Algorithm.values().length];
+
+    // Results per opening move, indexed by position
+    private final long[] openingGames;
+    private final long[] openingFirstMoverWins;
+    private final long[] openingDraws;
+
+    /**
+     * @param cells The number of cells of the board the games were played on
+     */
+    public GameLogStats(int cells) {
+        this.cells = cells;
+        openingGames = new long[cells + 1];
+        openingFirstMoverWins = new long[cells + 1];
+        openingDraws = new long[cells + 1];
+    }
+
+    /**
+     * Count one game.
+     * @param playerOne  Player one's algorithm, or null if it was not an AI
+     * @param playerTwo  Player two's algorithm, or null if it was not an AI
+     * @param winner     The winner, or null for a draw
+     * @param forfeit    True if the loser forfeited
+     * @param firstMover The player who moved first
+     * @param moveCount  The number of moves made
+     * @param opening    The first move, ignored if no moves were made
+     */
+    void record(Algorithm playerOne, Algorithm playerTwo, Board.PlayerId winner, boolean forfeit,
+                Board.PlayerId firstMover, int moveCount, int opening) {
+        games++;
+        moves += moveCount;
+        if (winner == null) draws++;
+        if (forfeit) forfeits++;
+        recordAlgorithm(playerOne, winner, Board.PlayerId.PLAYER_ONE);
+        recordAlgorithm(playerTwo, winner, Board.PlayerId.PLAYER_TWO);
+
+        if (moveCount > 0 && opening >= 1 && opening <= cells) {
+            openingGames[opening]++;
+            if (winner == null) openingDraws[opening]++;
+            else if (winner == firstMover) openingFirstMoverWins[opening]++;
+        }
+    }
+
+    private void recordAlgorithm(Algorithm algorithm, Board.PlayerId winner, Board.PlayerId seat) {
+        if (algorithm == null) return;
+        int i = algorithm.ordinal();
+        algorithmGames[i]++;
+        if (winner == null) algorithmDraws[i]++;
+        else if (winner == seat) algorithmWins[i]++;
+    }
+
+    /**
+     * Add the totals of another scan of games on the same board.
+     * @throws IllegalArgumentException if the other games were played on a board with a different number of cells
+     */
+    public void add(GameLogStats other) {
+        if (other.cells != cells) {
+            throw new IllegalArgumentException("Can't combine games on boards of " + cells + " and " + other.cells +
+                    " cells.");
+        }
+        games += other.games;
+        moves += other.moves;
+        draws += other.draws;
+        forfeits += other.forfeits;
+        for (int i = 0; i < algorithmGames.length; i++) {
+            algorithmGames[i] += other.algorithmGames[i];
+            algorithmWins[i] += other.algorithmWins[i];
+            algorithmDraws[i] += other.algorithmDraws[i];
+        }
+        for (int i = 0; i <= cells; i++) {
+            openingGames[i] += other.openingGames[i];
+            openingFirstMoverWins[i] += other.openingFirstMoverWins[i];
+            openingDraws[i] += other.openingDraws[i];
+        }
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getForfeits() {
+        return forfeits;
+    }
+
+    public double getAverageGameLength() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    /**
+     * @return The number of games the algorithm played, in either seat. A game between two players using the same
+     *         algorithm counts twice.
+     */
+    public long getGames(Algorithm algorithm) {
+        return algorithmGames[algorithm.ordinal()];
+    }
+
+    public long getWins(Algorithm algorithm) {
+        return algorithmWins[algorithm.ordinal()];
+    }
+
+    public long getDraws(Algorithm algorithm) {
+        return algorithmDraws[algorithm.ordinal()];
+    }
+
+    public long getLosses(Algorithm algorithm) {
+        return getGames(algorithm) - getWins(algorithm) - getDraws(algorithm);
+    }
+
+    /**
+     * @return The fraction of its games the algorithm won, or 0 if it played none
+     */
+    public double getWinRate(Algorithm algorithm) {
+        long played = getGames(algorithm);
+        return played == 0 ? 0 : (double) getWins(algorithm) / played;
+    }
+
+    /**
+     * @return The number of games that opened with the given position
+     */
+    public long getOpeningGames(int position) {
+        return openingGames[position];
+    }
+
+    /**
+     * @return The number of games opening with the given position that the player who opened went on to win
+     */
+    public long getOpeningFirstMoverWins(int position) {
+        return openingFirstMoverWins[position];
+    }
+
+    public long getOpeningDraws(int position) {
+        return openingDraws[position];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d games, %.2f moves per game, %.1f%% drawn, %d forfeited%n", games,
+                getAverageGameLength(), games == 0 ? 0 : 100.0 * draws / games, forfeits));
+        for (Algorithm algorithm : Algorithm.values()) {
+            long played = getGames(algorithm);
+            if (played == 0) continue;
+            report.append(String.format("%-7s: %d games, won %5.1f%%, drew %5.1f%%, lost %5.1f%%%n", algorithm, played,
+                    100.0 * getWins(algorithm) / played, 100.0 * getDraws(algorithm) / played,
+                    100.0 * getLosses(algorithm) / played));
+        }
+        for (int position = 1; position <= cells; position++) {
+            long opened = openingGames[position];
+            if (opened == 0) continue;
+            report.append(String.format("Opening %d: %d games, first mover won %5.1f%%, drew %5.1f%%%n", position,
+                    opened, 100.0 * openingFirstMoverWins[position] / opened, 100.0 * openingDraws[position] / opened));
+        }
+        return report.toString();
+    }
+}
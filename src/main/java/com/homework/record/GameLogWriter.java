@@ -0,0 +1,122 @@
+package com.homework.record;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer.Algorithm;
+import com.homework.sim.GameResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends games to a binary game log, see GameLogFormat for the layout. Records are encoded straight into a direct
+ * buffer that is written out as one block whenever it fills up, so appending a game is a few dozen byte writes and a
+ * file write every few thousand games.
+ *
+ * Appends are synchronized, so one writer can be shared by every thread of a tournament. The log is only complete
+ * once the writer is closed.
+ */
+public class GameLogWriter implements Closeable {
+    // Records are gathered into blocks of about this size. A game too long to fit gets a larger block of its own.
+    static final int BLOCK_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_BYTES);
+    private int blockRecords = 0;
+    private long records = 0;
+
+    /**
+     * Create a new log, replacing any existing file.
+     * @param path      The file to write
+     * @param rows      The number of rows of the board every game is played on
+     * @param cols      The number of columns of the board every game is played on
+     * @param winLength The length of line needed to win
+     */
+    public GameLogWriter(Path path, int rows, int cols, int winLength) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(GameLogFormat.header(rows, cols, winLength));
+        block.position(GameLogFormat.BLOCK_HEADER_BYTES);
+    }
+
+    /**
+     * Append a game.
+     * @param playerOne The algorithm player one used, or null if it was not an AI
+     * @param playerTwo The algorithm player two used, or null if it was not an AI
+     * @param result    The game's outcome and moves
+     */
+    public synchronized void append(Algorithm playerOne, Algorithm playerTwo, GameResult result) throws IOException {
+        int maxBytes = 3 + GameLogFormat.MAX_VARINT_BYTES * (result.getMoveCount() + 1);
+        if (block.remaining() < maxBytes) {
+            flushBlock();
+            if (block.remaining() < maxBytes) {
+                block = ByteBuffer.allocateDirect(GameLogFormat.BLOCK_HEADER_BYTES + maxBytes);
+                block.position(GameLogFormat.BLOCK_HEADER_BYTES);
+            }
+        }
+
+        int flags = GameLogFormat.encodePlayer(result.getWinner());
+        if (result.isForfeit()) flags |= GameLogFormat.FORFEIT;
+        if (result.getFirstMover() == Board.PlayerId.PLAYER_TWO) flags |= GameLogFormat.PLAYER_TWO_FIRST;
+
+        block.put((byte) algorithmIndex(playerOne));
+        block.put((byte) algorithmIndex(playerTwo));
+        block.put((byte) flags);
+        GameLogFormat.writeVarint(block, result.getMoveCount());
+        for (int i = 0; i < result.getMoveCount(); i++) {
+            GameLogFormat.writeVarint(block, result.getMove(i));
+        }
+        blockRecords++;
+        records++;
+    }
+
+    /**
+     * @return The number of games appended so far
+     */
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Write out any buffered games.
+     */
+    public synchronized void flush() throws IOException {
+        flushBlock();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            flushBlock();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockRecords == 0) return;
+        block.putInt(0, block.position() - GameLogFormat.BLOCK_HEADER_BYTES);
+        block.putInt(Integer.BYTES, blockRecords);
+        block.flip();
+        writeFully(block);
+
+        if (block.capacity() != BLOCK_BYTES) block = ByteBuffer.allocateDirect(BLOCK_BYTES);
+        block.clear();
+        block.position(GameLogFormat.BLOCK_HEADER_BYTES);
+        blockRecords = 0;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int algorithmIndex(Algorithm algorithm) {
+        return algorithm == null ? GameLogFormat.NO_ALGORITHM : algorithm.ordinal();
+    }
+}
@@ -0,0 +1,325 @@
+package com.homework.server;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer;
+import com.homework.impl.AIPlayer.Algorithm;
+import com.homework.metrics.GameMetrics;
+import com.homework.metrics.MetricsReporter;
+
+import javax.management.JMException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts any number of concurrent games against the AI over a line based protocol. Each connection plays one game at a
+ * time, as player one, against an AI that plays second:
+ *
+ *   NEW [size] [winLength] [algorithm]  Start a new game. Replies OK size winLength algorithm.
+ *   MOVE position                       Claim a position. Replies WIN or DRAW if that ended the game, otherwise
+ *                                       MOVE position with the AI's reply, followed by LOSS or DRAW if that ended it.
+ *   BOARD                               Replies BOARD rows cols cells, with X, O or - for each cell in order.
+ *   QUIT                                Replies BYE and closes the connection.
+ *
+ * Invalid commands get ERR and a message. Commands are handled one at a time per connection, so clients may send
+ * several before reading the replies.
+ *
+ * A single event loop thread multiplexes every connection with a selector, so sessions cost memory but no threads.
+ * The AI chooses its moves on a separate pool so that slow searches don't hold up other sessions. Each pool thread
+ * keeps one AIPlayer per algorithm, shared by all the sessions it serves, and searches are given a time budget.
+ *
+ * Run with:
+ *   java -cp target/tictactoe-1.0-SNAPSHOT.jar com.homework.server.GameServer [port] [maxSessions] [aiThreads]
+ */
+public class GameServer implements Closeable {
+    public static final int DEFAULT_PORT = 4000;
+    public static final int DEFAULT_MAX_SESSIONS = 16384;
+    public static final int DEFAULT_BOARD_SIZE = 3;
+    public static final Algorithm DEFAULT_ALGORITHM = Algorithm.MINIMAX;
+    // Caps the memory of a session's board and responses
+    public static final int MAX_BOARD_SIZE = 19;
+
+    // Most wall-clock time the AI takes per move, so larger boards stay responsive
+    private static final long AI_MOVE_BUDGET_MILLIS = 100;
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final InetSocketAddress address;
+    private final int maxSessions;
+    private final int aiThreads;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService aiPool;
+    private Thread eventLoop;
+    // Prints the metrics periodically while serving, if asked to by MetricsReporter.INTERVAL_PROPERTY
+    private MetricsReporter reporter;
+    private volatile boolean running = false;
+    private volatile int sessionCount = 0;
+
+    // Sessions whose AI move is ready, handed from the AI pool back to the event loop
+    private final Queue<GameSession> finishedMoves = new ConcurrentLinkedQueue<GameSession>();
+
+    // Each AI thread's players
+    private final ThreadLocal<AIPlayers> players = new ThreadLocal<AIPlayers>() {
+        @Override
+        protected AIPlayers initialValue() {
+            return new AIPlayers();
+        }
+    };
+
+    /**
+     * @param port        The port to listen on, or 0 for any free port
+     * @param maxSessions The most connections to serve at once. Further connections are refused with an error.
+     * @param aiThreads   The number of threads the AI chooses moves on
+     */
+    public GameServer(int port, int maxSessions, int aiThreads) {
+        if (maxSessions < 1) throw new IllegalArgumentException("Must allow at least one session.");
+        if (aiThreads < 1) throw new IllegalArgumentException("Must use at least one AI thread.");
+        this.address = new InetSocketAddress(port);
+        this.maxSessions = maxSessions;
+        this.aiThreads = aiThreads;
+    }
+
+    /**
+     * Bind the port and start serving on a new thread. Metrics are reported until close if the reporter is enabled.
+     */
+    public synchronized void start() throws IOException {
+        if (running) throw new IllegalStateException("Server already started.");
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, ACCEPT_BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        aiPool = Executors.newFixedThreadPool(aiThreads);
+        reporter = MetricsReporter.fromSystemProperty();
+
+        running = true;
+        eventLoop = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "game-server");
+        eventLoop.start();
+    }
+
+    /**
+     * @return The port the server is listening on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return The number of connected clients
+     */
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    /**
+     * Stop serving and disconnect every client.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        aiPool.shutdownNow();
+        if (reporter != null) reporter.close();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void serve() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                // Selector failures are not specific to a session, so there is nothing to recover
+                throw new RuntimeException(e);
+            }
+            GameSession finished;
+            while ((finished = finishedMoves.poll()) != null) {
+                if (!finished.key.isValid()) continue;
+                finished.finishAiMove();
+                resume(finished);
+            }
+
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                if (!key.isValid()) continue;
+                if (key.isAcceptable()) {
+                    accept();
+                } else {
+                    GameSession session = (GameSession) key.attachment();
+                    if (key.isReadable() && !read(session)) {
+                        disconnect(session);
+                        continue;
+                    }
+                    resume(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return False if the client closed the connection or it broke, e.g. was reset, in which case only this session
+     *         ends
+     */
+    private static boolean read(GameSession session) {
+        try {
+            return session.read() >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        while ((channel = acceptNext()) != null) {
+            try {
+                channel.configureBlocking(false);
+                if (sessionCount >= maxSessions) {
+                    channel.write(ByteBuffer.wrap("ERR Server full\n".getBytes(StandardCharsets.US_ASCII)));
+                    channel.close();
+                    continue;
+                }
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new GameSession(channel, key));
+                sessionCount++;
+            } catch (IOException e) {
+                // The client hung up before it was set up. Other connections are unaffected.
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * @return The next pending connection, or null if there are none or accepting failed, e.g. because the process is
+     *         out of file descriptors. Accepting is retried on the next select.
+     */
+    private SocketChannel acceptNext() {
+        try {
+            return serverChannel.accept();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Handle as many of a session's buffered commands as possible, flushing each response before moving on to the next
+     * command so output never backs up. Stops while the AI is thinking or the client isn't reading.
+     */
+    private void resume(GameSession session) {
+        try {
+            session.flush();
+            while (!session.isThinking() && !session.hasPendingOutput() && !session.isClosing()) {
+                String line = session.nextLine();
+                if (line == null) break;
+                if (session.handle(line)) think(session);
+                session.flush();
+            }
+
+            if (session.isClosing() && !session.hasPendingOutput()) {
+                disconnect(session);
+            } else if (session.isThinking()) {
+                session.key.interestOps(0);
+            } else if (session.hasPendingOutput()) {
+                session.key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                session.key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            // The client went away mid-write
+            disconnect(session);
+        }
+    }
+
+    private void think(final GameSession session) {
+        final Board board = session.getBoard();
+        final Algorithm algorithm = session.getAlgorithm();
+        aiPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    session.aiMove = players.get().get(algorithm, board).getNextMove(board);
+                } catch (RuntimeException e) {
+                    session.aiMove = -1;
+                }
+                finishedMoves.add(session);
+                selector.wakeup();
+            }
+        });
+    }
+
+    /**
+     * The players of one AI thread, one per algorithm, each shared by every session the thread serves. Positions on
+     * boards of different shapes can hash alike, so a player starts a new game, clearing its transposition table,
+     * whenever it moves on a board of a different shape to the last.
+     */
+    private static class AIPlayers {
+        private final AIPlayer[] players = new AIPlayer[Algorithm.values().length];
+        private final long[] shapes = new long[Algorithm.values().length];
+
+        AIPlayer get(Algorithm algorithm, Board b) {
+            int i = algorithm.ordinal();
+            long shape = ((long) b.getRows() << 40) | ((long) b.getCols() << 20) | b.getWinLength();
+            if (players[i] == null) {
+                players[i] = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", algorithm);
+                players[i].setMoveTimeBudget(AI_MOVE_BUDGET_MILLIS);
+            } else if (shapes[i] != shape) {
+                players[i].newGame();
+            }
+            shapes[i] = shape;
+            return players[i];
+        }
+    }
+
+    private void disconnect(GameSession session) {
+        if (!session.channel.isOpen()) return;
+        session.key.cancel();
+        closeQuietly(session.channel);
+        sessionCount--;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more to do for a connection that is already broken
+        }
+    }
+
+    public static void main(String args[]) throws IOException, JMException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_SESSIONS;
+        int aiThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        GameMetrics.registerMBean();
+        GameServer server = new GameServer(port, maxSessions, aiThreads);
+        server.start();
+        System.out.println("Serving games on port " + server.getPort() + " for up to " + maxSessions + " clients");
+    }
+}
@@ -0,0 +1,229 @@
+package com.homework.server;
+
+import com.homework.Board;
+import com.homework.impl.AIPlayer.Algorithm;
+import com.homework.metrics.GameMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One client connection to the GameServer and the game it is playing. A session's memory is fixed when it connects,
+ * apart from its board: a line sized input buffer, an output buffer large enough for the longest response, and the
+ * board of the current game, which is at most MAX_BOARD_SIZE on a side.
+ *
+ * Sessions are owned by the server's event loop thread. The only exception is the board while the AI is choosing a
+ * move on it, during which the event loop leaves the session alone.
+ */
+class GameSession {
+    static final int MAX_LINE_BYTES = 64;
+    static final int MAX_RESPONSE_BYTES = GameServer.MAX_BOARD_SIZE * GameServer.MAX_BOARD_SIZE + 32;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE_BYTES);
+    private final ByteBuffer out = ByteBuffer.allocate(MAX_RESPONSE_BYTES);
+    private final GameMetrics metrics = GameMetrics.get();
+
+    private Board board = null;
+    private Algorithm algorithm = null;
+
+    // True while the AI is choosing a move on the board
+    private boolean thinking = false;
+    // The move the AI chose, handed back from the AI thread through the server's completion queue
+    int aiMove = -1;
+    // True once the session should be closed as soon as its output is flushed
+    private boolean closing = false;
+
+    GameSession(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    Board getBoard() {
+        return board;
+    }
+
+    Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    boolean isThinking() {
+        return thinking;
+    }
+
+    boolean isClosing() {
+        return closing;
+    }
+
+    boolean hasPendingOutput() {
+        return out.position() > 0;
+    }
+
+    /**
+     * @return The number of bytes read, or -1 if the client closed the connection
+     */
+    int read() throws IOException {
+        return channel.read(in);
+    }
+
+    /**
+     * Write as much pending output as the socket will take.
+     */
+    void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    /**
+     * Take the next complete line from the input buffer.
+     * @return The line without its terminator, or null if no complete line has been read yet
+     */
+    String nextLine() {
+        for (int i = 0; i < in.position(); i++) {
+            if (in.get(i) != '\n') continue;
+            int end = i > 0 && in.get(i - 1) == '\r' ? i - 1 : i;
+            String line = new String(in.array(), 0, end, StandardCharsets.US_ASCII);
+            in.flip();
+            in.position(i + 1);
+            in.compact();
+            return line;
+        }
+        if (!in.hasRemaining()) {
+            // A full buffer without a line break can never become a valid command
+            in.clear();
+            fail("Line too long");
+            closing = true;
+        }
+        return null;
+    }
+
+    /**
+     * Carry out one command.
+     * @return True if the AI must now choose a move, in which case the response is written by finishAiMove
+     */
+    boolean handle(String line) {
+        String[] words = line.trim().split(" +");
+        String command = words[0];
+        if (command.equals("NEW")) {
+            newGame(words);
+        } else if (command.equals("MOVE")) {
+            return move(words);
+        } else if (command.equals("BOARD")) {
+            showBoard();
+        } else if (command.equals("QUIT")) {
+            respond("BYE");
+            closing = true;
+        } else {
+            fail("Unknown command " + command);
+        }
+        return false;
+    }
+
+    private void newGame(String[] words) {
+        try {
+            int size = words.length > 1 ? Integer.parseInt(words[1]) : GameServer.DEFAULT_BOARD_SIZE;
+            int winLength = words.length > 2 ? Integer.parseInt(words[2]) : size;
+            Algorithm algorithm = words.length > 3 ? Algorithm.valueOf(words[3]) : GameServer.DEFAULT_ALGORITHM;
+            if (size > GameServer.MAX_BOARD_SIZE) {
+                fail("Board size must be at most " + GameServer.MAX_BOARD_SIZE);
+                return;
+            }
+            board = new Board(size, size, winLength);
+            this.algorithm = algorithm;
+            respond("OK " + size + " " + winLength + " " + algorithm);
+        } catch (IllegalArgumentException e) {
+            // Covers malformed numbers and unknown algorithms as well as invalid board shapes
+            fail(e.getMessage());
+        }
+    }
+
+    private boolean move(String[] words) {
+        if (board == null || board.isBoardWon() || !board.validMovesRemain()) {
+            fail("No game in progress");
+            return false;
+        }
+        int position;
+        try {
+            position = Integer.parseInt(words.length > 1 ? words[1] : "");
+        } catch (NumberFormatException e) {
+            fail("Move must be a position");
+            return false;
+        }
+        if (!board.isValidMove(position)) {
+            metrics.recordInvalidMove();
+            fail("Invalid move " + position);
+            return false;
+        }
+
+        // The client always plays first as player one
+        board.move(position, Board.PlayerId.PLAYER_ONE);
+        metrics.recordMove();
+        if (board.isBoardWon()) {
+            metrics.recordGame(false, false);
+            respond("WIN");
+        } else if (!board.validMovesRemain()) {
+            metrics.recordGame(true, false);
+            respond("DRAW");
+        } else {
+            thinking = true;
+        }
+        return thinking;
+    }
+
+    /**
+     * Play the move the AI chose and report it to the client, along with the result if it ended the game.
+     */
+    void finishAiMove() {
+        thinking = false;
+        if (aiMove < 0 || !board.move(aiMove, Board.PlayerId.PLAYER_TWO)) {
+            fail("AI failed to move");
+            board = null;
+            return;
+        }
+        metrics.recordMove();
+        if (board.isBoardWon()) {
+            metrics.recordGame(false, false);
+            respond("MOVE " + aiMove + " LOSS");
+        } else if (!board.validMovesRemain()) {
+            metrics.recordGame(true, false);
+            respond("MOVE " + aiMove + " DRAW");
+        } else {
+            respond("MOVE " + aiMove);
+        }
+    }
+
+    private void showBoard() {
+        if (board == null) {
+            fail("No game in progress");
+            return;
+        }
+        put("BOARD " + board.getRows() + " " + board.getCols() + " ");
+        for (int position = 1; position <= board.getCellCount(); position++) {
+            Board.PlayerId owner = board.getCellOwner(position);
+            out.put(owner == null ? (byte) '-' : (byte) owner.getSymbol().charAt(0));
+        }
+        out.put((byte) '\n');
+    }
+
+    private void fail(String message) {
+        respond("ERR " + message);
+    }
+
+    private void respond(String line) {
+        // Responses are written one at a time into an empty buffer, so only an overlong error message can fail to fit
+        put(line.length() < out.remaining() ? line : line.substring(0, out.remaining() - 1));
+        out.put((byte) '\n');
+    }
+
+    private void put(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.put((byte) text.charAt(i));
+        }
+    }
+}
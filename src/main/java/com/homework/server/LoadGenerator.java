@@ -0,0 +1,266 @@
+package com.homework.server;
+
+import com.homework.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Load test client for the GameServer. Opens many connections from a single thread and has each of them play a number
+ * of games of random moves against the server's AI, timing every command from sending it to reading its reply.
+ *
+ * Run with:
+ *   java -cp target/tictactoe-1.0-SNAPSHOT.jar com.homework.server.LoadGenerator [host] [port] [connections]
+ *       [gamesPerConnection] [boardSize] [algorithm]
+ */
+public class LoadGenerator {
+    private final InetSocketAddress address;
+    private final int connections;
+    private final int gamesPerConnection;
+    private final int boardSize;
+    private final String algorithm;
+    private final long seed;
+
+    /**
+     * @param address            The server to connect to
+     * @param connections        The number of clients to connect at once
+     * @param gamesPerConnection The number of games each client plays before quitting
+     * @param boardSize          The size of the boards to play on, won by a full line
+     * @param algorithm          The name of the AI algorithm to play against
+     * @param seed               Seed for the clients' random moves
+     */
+    public LoadGenerator(InetSocketAddress address, int connections, int gamesPerConnection, int boardSize,
+                         String algorithm, long seed) {
+        this.address = address;
+        this.connections = connections;
+        this.gamesPerConnection = gamesPerConnection;
+        this.boardSize = boardSize;
+        this.algorithm = algorithm;
+        this.seed = seed;
+    }
+
+    /**
+     * Connect every client and play until all of them have finished their games or disconnected.
+     */
+    public Result run() throws IOException {
+        Result result = new Result();
+        SplittableRandom random = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < connections; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                Client client = new Client(channel, random.split(), result);
+                if (channel.connect(address)) {
+                    channel.register(selector, SelectionKey.OP_READ, client);
+                    client.send(newGameCommand());
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, client);
+                }
+            }
+
+            int open = connections;
+            while (open > 0) {
+                selector.select();
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    Client client = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            client.channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_READ);
+                            client.send(newGameCommand());
+                        } else if (key.isReadable() && !client.receive()) {
+                            key.cancel();
+                            client.channel.close();
+                            open--;
+                        }
+                    } catch (IOException e) {
+                        result.errors++;
+                        key.cancel();
+                        client.channel.close();
+                        open--;
+                    }
+                }
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private String newGameCommand() {
+        return "NEW " + boardSize + " " + boardSize + " " + algorithm;
+    }
+
+    /**
+     * One connection's side of its games. Sends a command, waits for the reply, and decides the next command from it.
+     */
+    private class Client {
+        private final SocketChannel channel;
+        private final SplittableRandom random;
+        private final Result result;
+        private final ByteBuffer in = ByteBuffer.allocate(GameSession.MAX_RESPONSE_BYTES);
+        private final boolean[] taken = new boolean[boardSize * boardSize + 1];
+        private int gamesLeft = gamesPerConnection;
+        private long sentAt = 0;
+
+        Client(SocketChannel channel, SplittableRandom random, Result result) {
+            this.channel = channel;
+            this.random = random;
+            this.result = result;
+        }
+
+        void send(String command) throws IOException {
+            ByteBuffer line = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.US_ASCII));
+            // Commands are tiny, so a blocking loop on a non-blocking channel finishes at once in practice
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            sentAt = System.nanoTime();
+            result.commands++;
+        }
+
+        /**
+         * Read and act on the server's reply.
+         * @return False once the connection should be closed
+         */
+        boolean receive() throws IOException {
+            if (channel.read(in) < 0) return false;
+            int end = -1;
+            for (int i = 0; i < in.position(); i++) {
+                if (in.get(i) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) return true;
+            result.latencies.record(System.nanoTime() - sentAt);
+            String[] reply = new String(in.array(), 0, end, StandardCharsets.US_ASCII).split(" ");
+            in.clear();
+
+            String kind = reply[0];
+            if (kind.equals("OK")) {
+                Arrays.fill(taken, false);
+                return move();
+            } else if (kind.equals("MOVE")) {
+                taken[Integer.parseInt(reply[1])] = true;
+                if (reply.length > 2) return endGame(reply[2]);
+                return move();
+            } else if (kind.equals("WIN") || kind.equals("DRAW")) {
+                return endGame(kind);
+            } else if (kind.equals("BYE")) {
+                return false;
+            }
+            result.errors++;
+            return false;
+        }
+
+        private boolean move() throws IOException {
+            int free = 0;
+            for (int position = 1; position < taken.length; position++) {
+                if (!taken[position]) free++;
+            }
+            int choice = random.nextInt(free);
+            for (int position = 1; position < taken.length; position++) {
+                if (taken[position]) continue;
+                if (choice-- == 0) {
+                    taken[position] = true;
+                    send("MOVE " + position);
+                    break;
+                }
+            }
+            return true;
+        }
+
+        private boolean endGame(String outcome) throws IOException {
+            result.games++;
+            if (outcome.equals("WIN")) result.wins++;
+            else if (outcome.equals("LOSS")) result.losses++;
+            else result.draws++;
+            send(--gamesLeft > 0 ? newGameCommand() : "QUIT");
+            return true;
+        }
+    }
+
+    /**
+     * Totals over every client of a run.
+     */
+    public static class Result {
+        private long games = 0;
+        private long wins = 0;
+        private long losses = 0;
+        private long draws = 0;
+        private long commands = 0;
+        private long errors = 0;
+        private long elapsedNanos = 0;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * @return The number of games the clients won against the AI
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        public long getLosses() {
+            return losses;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        public long getCommands() {
+            return commands;
+        }
+
+        /**
+         * @return The number of clients that got an error reply or lost their connection
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return The time from sending each command to reading its reply
+         */
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%d games (%d won, %d lost, %d drawn) and %d commands in %.2f s: %.0f games/sec, " +
+                            "%.0f commands/sec, %d errors%nLatency: %s", games, wins, losses, draws, commands, seconds,
+                    games / seconds, commands / seconds, errors, latencies.summary());
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int boardSize = args.length > 4 ? Integer.parseInt(args[4]) : GameServer.DEFAULT_BOARD_SIZE;
+        String algorithm = args.length > 5 ? args[5] : "RANDOM";
+
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port), connections, games, boardSize,
+                algorithm, 1);
+        System.out.println(generator.run());
+    }
+}
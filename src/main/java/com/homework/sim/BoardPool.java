@@ -0,0 +1,74 @@
+package com.homework.sim;
+
+import com.homework.Board;
+
+import java.util.ArrayDeque;
+
+/**
+ * Reuses boards of a single shape across simulated games, so that playing one more game doesn't allocate a new board.
+ * Released boards are reset, which only touches the cells claimed in the game, and handed out again by the next
+ * acquire on the same thread.
+ *
+ * Each thread keeps its own stack of idle boards, so acquiring and releasing never contend. A board must be released
+ * on the thread that acquired it.
+ */
+public class BoardPool {
+    // Idle boards kept per thread. Threads hold one board per game they have in progress, so a few is plenty.
+    private static final int MAX_IDLE_BOARDS = 4;
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+
+    private final ThreadLocal<ArrayDeque<Board>> idleBoards = new ThreadLocal<ArrayDeque<Board>>() {
+        @Override
+        protected ArrayDeque<Board> initialValue() {
+            return new ArrayDeque<Board>(MAX_IDLE_BOARDS);
+        }
+    };
+
+    /**
+     * Create a pool of boardSize x boardSize boards won by a full row, column or main diagonal.
+     */
+    public BoardPool(int boardSize) {
+        this(boardSize, boardSize, boardSize);
+    }
+
+    /**
+     * @param rows      The number of rows of each board
+     * @param cols      The number of columns of each board
+     * @param winLength The length of line needed to win
+     * @throws IllegalArgumentException if the shape is not a valid board
+     */
+    public BoardPool(int rows, int cols, int winLength) {
+        // Fail now rather than on the first acquire
+        new Board(rows, cols, winLength);
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+    }
+
+    /**
+     * @return An empty board, reused from an earlier game on this thread if one is idle
+     */
+    public Board acquire() {
+        Board board = idleBoards.get().pollFirst();
+        return board != null ? board : new Board(rows, cols, winLength);
+    }
+
+    /**
+     * Reset a board and keep it for the next acquire on this thread. The caller must not use it afterwards.
+     * @param board A board acquired from this pool
+     * @throws IllegalArgumentException if the board does not have this pool's shape
+     */
+    public void release(Board board) {
+        if (board.getRows() != rows || board.getCols() != cols || board.getWinLength() != winLength) {
+            throw new IllegalArgumentException("Board does not belong to this pool. Board size: " + board.getRows() +
+                    "x" + board.getCols() + "; Win length: " + board.getWinLength());
+        }
+        ArrayDeque<Board> idle = idleBoards.get();
+        if (idle.size() >= MAX_IDLE_BOARDS) return;
+        board.reset();
+        idle.addFirst(board);
+    }
+}
@@ -0,0 +1,77 @@
+package com.homework.sim;
+
+import com.homework.Board;
+
+/**
+ * Outcome of a single game played by the GameRunner.
+ */
+public class GameResult {
+    private final Board.PlayerId winner;
+    private final Board.PlayerId forfeitedBy;
+    private final Board.PlayerId firstMover;
+    private final int[] moves;
+
+    /**
+     * Create the result of a game that player one started.
+     * @param winner      The winning player, or null for a draw
+     * @param forfeitedBy The player who forfeited by making too many invalid moves, or null if the game was played out
+     * @param moves       The positions claimed during the game, in order
+     */
+    public GameResult(Board.PlayerId winner, Board.PlayerId forfeitedBy, int[] moves) {
+        this(winner, forfeitedBy, Board.PlayerId.PLAYER_ONE, moves);
+    }
+
+    /**
+     * @param winner      The winning player, or null for a draw
+     * @param forfeitedBy The player who forfeited by making too many invalid moves, or null if the game was played out
+     * @param firstMover  The player who made the first move. Players alternate from there.
+     * @param moves       The positions claimed during the game, in order
+     */
+    public GameResult(Board.PlayerId winner, Board.PlayerId forfeitedBy, Board.PlayerId firstMover, int[] moves) {
+        this.winner = winner;
+        this.forfeitedBy = forfeitedBy;
+        this.firstMover = firstMover;
+        this.moves = moves;
+    }
+
+    /**
+     * @return The winning player, or null if the game was drawn
+     */
+    public Board.PlayerId getWinner() {
+        return winner;
+    }
+
+    public boolean isDraw() {
+        return winner == null;
+    }
+
+    /**
+     * @return True if the game ended because a player kept making invalid moves. The other player is the winner.
+     */
+    public boolean isForfeit() {
+        return forfeitedBy != null;
+    }
+
+    public Board.PlayerId getForfeitedBy() {
+        return forfeitedBy;
+    }
+
+    /**
+     * @return The player who made the first move
+     */
+    public Board.PlayerId getFirstMover() {
+        return firstMover;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * @param index The index of the move, counting from 0 for the first move of the game
+     * @return The position claimed by that move
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+}
@@ -0,0 +1,158 @@
+package com.homework.sim;
+
+import com.homework.Board;
+import com.homework.BoardListener;
+import com.homework.BoardRenderer;
+import com.homework.Player;
+import com.homework.metrics.GameMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a single game between two players and reports the outcome. Unlike the interactive game in Main, the runner
+ * never exits the JVM and only prints the board if asked to, so it can play any number of games back to back.
+ */
+public class GameRunner {
+    private static final int MAX_INVALID_MOVE_COUNT = 3;
+
+    private static final GameMetrics METRICS = GameMetrics.get();
+
+    // Draws the board before the first move and after every move, or null to run headless
+    private final BoardRenderer renderer;
+    // Attached to the board for the length of each game
+    private final List<BoardListener> listeners = new ArrayList<BoardListener>();
+
+    /**
+     * Create a headless runner that prints nothing.
+     */
+    public GameRunner() {
+        this((BoardRenderer) null);
+    }
+
+    /**
+     * @param showBoard True to print the board to standard out before the first move and after every move
+     */
+    public GameRunner(boolean showBoard) {
+        this(showBoard ? new BoardRenderer(System.out) : null);
+    }
+
+    /**
+     * @param renderer Draws the board before the first move and after every move, or null to draw nothing
+     */
+    public GameRunner(BoardRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Have a listener told about every move of every game this runner plays from now on, e.g. to log or measure games.
+     */
+    public void addListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Given a list of players and a board, run the tic tac toe game until it is won, drawn or forfeited.
+     * @param players List of players. For now, there must be two players. The first player moves first.
+     * @param b The tic tac toe board of arbitrary size >= 1x1
+     * @return The outcome of the game
+     */
+    public GameResult run(List<Player> players, Board b) {
+        if (players.size() != 2) {
+            throw new IllegalArgumentException("The game only supports two players presently. " +
+                    "Please provide valid input.");
+        }
+
+        for (Player player : players) {
+            player.newGame();
+        }
+
+        // Show current board state, then let the renderer redraw it after each move
+        if (renderer != null) {
+            renderer.render(b);
+            b.addListener(renderer);
+        }
+        for (BoardListener listener : listeners) {
+            b.addListener(listener);
+        }
+        try {
+            return play(players, b);
+        } finally {
+            if (renderer != null) b.removeListener(renderer);
+            for (BoardListener listener : listeners) {
+                b.removeListener(listener);
+            }
+        }
+    }
+
+    private static GameResult play(List<Player> players, Board b) {
+        int currentPlayerIdx = 0;
+
+        // Safe to check for valid moves remain because TicTacToe is guaranteed to terminate as long as players
+        // make valid moves and we include an internal check to ensure that players eventually make a valid move.
+        while (b.validMovesRemain()) {
+            Player currentPlayer = players.get(currentPlayerIdx);
+            int move = getNextValidMove(b, currentPlayer);
+
+            // In the hypothetical situation where someone (computer or person) keeps making illegal moves, terminate
+            // the match and concede victory to the other player.
+            if (move < 0) {
+                Player otherPlayer = players.get(1 - currentPlayerIdx);
+                return result(players, b, otherPlayer.getPlayerId(), currentPlayer.getPlayerId());
+            }
+
+            // Once we reach here, the game is guaranteed not to be won, valid moves remain, and the proposed move
+            // is valid. In theory, updated should always be true. Check it to be safe and throw an error if false.
+            boolean updated = b.move(move, currentPlayer.getPlayerId());
+            if (!updated) throw new Error("Updated should be true since we've checked that moves are available and " +
+                    "the proposed move is known to be valid. This would only fail if the state update failed or if " +
+                    "one of the above checks is flawed.");
+            METRICS.recordMove();
+
+            // Check for victory, otherwise switch player
+            if (b.isBoardWon()) {
+                return result(players, b, currentPlayer.getPlayerId(), null);
+            }
+            if (++currentPlayerIdx >= players.size()) currentPlayerIdx = 0; // Get next player
+        }
+
+        return result(players, b, null, null);
+    }
+
+    /**
+     * A player may make an illegal move, therefore wrap the move logic in some checks to ensure that the game doesn't
+     * run on forever if players keep making consecutive illegal moves.
+     * @param b The board state
+     * @param currentPlayer Current player
+     * @return A valid move, or -1 if the player made too many illegal moves
+     */
+    private static int getNextValidMove(Board b, Player currentPlayer) {
+        int invalidMoveCounter = 0;
+        int move = currentPlayer.getNextMove(b); // This is not guaranteed to be valid so check for validity.
+        while (!b.isValidMove(move)) { // Allow some retries to provide a valid move (e.g. typo or algorithm flaw)
+            METRICS.recordInvalidMove();
+            if (invalidMoveCounter++ > MAX_INVALID_MOVE_COUNT) {
+                return -1;
+            }
+            move = currentPlayer.getNextMove(b);
+        }
+        return move;
+    }
+
+    private static GameResult result(List<Player> players, Board b, Board.PlayerId winner,
+                                     Board.PlayerId forfeitedBy) {
+        METRICS.recordGame(winner == null, forfeitedBy != null);
+        int[] moves = new int[b.getMoveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = b.getMove(i);
+        }
+        return new GameResult(winner, forfeitedBy, players.get(0).getPlayerId(), moves);
+    }
+
+    /**
+     * @return The number of consecutive invalid moves a player may make before forfeiting
+     */
+    public static int getMaxInvalidMoveCount() {
+        return MAX_INVALID_MOVE_COUNT;
+    }
+}
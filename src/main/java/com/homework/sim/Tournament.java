@@ -0,0 +1,330 @@
+package com.homework.sim;
+
+import com.homework.Board;
+import com.homework.Player;
+import com.homework.impl.AIPlayer;
+import com.homework.impl.AIPlayer.Algorithm;
+import com.homework.impl.TranspositionTable;
+import com.homework.metrics.GameMetrics;
+import com.homework.metrics.LatencyHistogram;
+import com.homework.metrics.MetricsReporter;
+import com.homework.record.GameLogWriter;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays AI players against each other headlessly for every pairing of algorithms and reports how each pairing went.
+ *
+ * Games are spread across a fork-join pool. Every game gets its own random number streams, derived from the
+ * tournament seed and the game's index, and players forget their search tables between games. A game therefore plays
+ * out the same way no matter which thread runs it, so a given seed reproduces the same results with any number of
+ * threads.
+ *
+ * Run with:
+ *   java -cp target/tictactoe-1.0-SNAPSHOT.jar com.homework.sim.Tournament [gamesPerPairing] [boardSize] [searchDepth]
+ *       [threads] [seed] [gameLogFile]
+ * Every game is appended to the game log file, if one is given, for later analysis.
+ */
+public class Tournament {
+    private static final int DEFAULT_GAMES_PER_PAIRING = 10000;
+    private static final int DEFAULT_BOARD_SIZE = 3;
+
+    // Games played by a single fork-join task before it stops splitting
+    private static final int GAMES_PER_TASK = 1024;
+
+    // Each player gets a small transposition table of its own so that workers never share one
+    private static final long TABLE_BYTES_PER_PLAYER = 256 * 1024;
+
+    // Playouts per move for MCTS players. Well below the interactive default so that tournaments of many thousands of
+    // games finish quickly. Each player searches on one thread, since the games themselves run in parallel.
+    private static final int PLAYOUTS_PER_MOVE = 1000;
+
+    private final int gamesPerPairing;
+    private final int searchDepth;
+    private final int threads;
+    private final long seed;
+
+    // Boards are reset and reused between games on each worker thread
+    private final BoardPool boards;
+
+    private GameLogWriter gameLog = null;
+
+    /**
+     * Create a single threaded tournament with a fixed seed.
+     * @param boardSize       The size of the board every game is played on
+     * @param gamesPerPairing The number of games to play for each ordered pair of algorithms
+     * @param searchDepth     The look ahead for players using a searching algorithm
+     */
+    public Tournament(int boardSize, int gamesPerPairing, int searchDepth) {
+        this(boardSize, gamesPerPairing, searchDepth, 1, 0);
+    }
+
+    /**
+     * @param boardSize       The size of the board every game is played on
+     * @param gamesPerPairing The number of games to play for each ordered pair of algorithms
+     * @param searchDepth     The look ahead for players using a searching algorithm
+     * @param threads         The number of worker threads to play games on
+     * @param seed            The seed every game's random moves are derived from
+     */
+    public Tournament(int boardSize, int gamesPerPairing, int searchDepth, int threads, long seed) {
+        if (gamesPerPairing < 1) throw new IllegalArgumentException("Must play at least one game per pairing.");
+        if (threads < 1) throw new IllegalArgumentException("Must use at least one thread.");
+        this.gamesPerPairing = gamesPerPairing;
+        this.searchDepth = searchDepth;
+        this.threads = threads;
+        this.seed = seed;
+        this.boards = new BoardPool(boardSize);
+    }
+
+    /**
+     * Record every game played from now on.
+     * @param gameLog The log to append games to, or null to stop recording. The tournament does not close it.
+     */
+    public void setGameLog(GameLogWriter gameLog) {
+        this.gameLog = gameLog;
+    }
+
+    /**
+     * Play every algorithm against every algorithm, including itself, once as player one and once as player two.
+     * @return One result per ordered pairing
+     */
+    public List<PairingResult> run() {
+        List<PairingResult> results = new ArrayList<PairingResult>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Algorithm first : Algorithm.values()) {
+                for (Algorithm second : Algorithm.values()) {
+                    results.add(play(pool, first, second));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * Play all the games for a single pairing.
+     * @param first  The algorithm for player one, who always moves first
+     * @param second The algorithm for player two
+     * @return The tally for the pairing
+     */
+    public PairingResult play(Algorithm first, Algorithm second) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return play(pool, first, second);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private PairingResult play(ForkJoinPool pool, Algorithm first, Algorithm second) {
+        // Give each pairing its own range of game indices so that no two games in the tournament share a seed
+        long firstGame = ((long) first.ordinal() * Algorithm.values().length + second.ordinal()) * gamesPerPairing;
+
+        long start = System.nanoTime();
+        PairingResult result = pool.invoke(new GamesTask(first, second, firstGame, firstGame + gamesPerPairing));
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Plays a contiguous range of games, splitting the range in half until it is small enough to play directly.
+     */
+    private class GamesTask extends RecursiveTask<PairingResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final Algorithm first;
+        private final Algorithm second;
+        private final long fromGame;
+        private final long toGame;
+
+        GamesTask(Algorithm first, Algorithm second, long fromGame, long toGame) {
+            this.first = first;
+            this.second = second;
+            this.fromGame = fromGame;
+            this.toGame = toGame;
+        }
+
+        @Override
+        protected PairingResult compute() {
+            if (toGame - fromGame > GAMES_PER_TASK) {
+                long middle = (fromGame + toGame) >>> 1;
+                GamesTask left = new GamesTask(first, second, fromGame, middle);
+                left.fork();
+                PairingResult result = new GamesTask(first, second, middle, toGame).compute();
+                result.add(left.join());
+                return result;
+            }
+
+            AIPlayer playerOne = newPlayer(Board.PlayerId.PLAYER_ONE, first);
+            AIPlayer playerTwo = newPlayer(Board.PlayerId.PLAYER_TWO, second);
+            List<Player> players = Arrays.<Player>asList(playerOne, playerTwo);
+            GameRunner runner = new GameRunner();
+
+            PairingResult result = new PairingResult(first, second);
+            for (long game = fromGame; game < toGame; game++) {
+                // Split one stream per game into independent streams for the two players
+                SplittableRandom gameRandom = new SplittableRandom(seed + game * 0x9E3779B97F4A7C15L);
+                playerOne.setSeed(gameRandom.nextLong());
+                playerTwo.setSeed(gameRandom.split().nextLong());
+                Board board = boards.acquire();
+                GameResult gameResult = runner.run(players, board);
+                boards.release(board);
+                result.record(gameResult);
+                if (gameLog != null) log(first, second, gameResult);
+            }
+            result.playerOneLatencies.add(playerOne.getMoveLatencies());
+            result.playerTwoLatencies.add(playerTwo.getMoveLatencies());
+            return result;
+        }
+    }
+
+    private void log(Algorithm first, Algorithm second, GameResult game) {
+        try {
+            gameLog.append(first, second, game);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record game.", e);
+        }
+    }
+
+    private AIPlayer newPlayer(Board.PlayerId playerId, Algorithm algo) {
+        AIPlayer player = new AIPlayer(playerId, algo.name(), algo, searchDepth);
+        if (algo == Algorithm.MINIMAX) {
+            player.setTranspositionTable(
+                    new TranspositionTable(TABLE_BYTES_PER_PLAYER, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED));
+        } else if (algo == Algorithm.MCTS) {
+            player.setPlayouts(PLAYOUTS_PER_MOVE);
+        }
+        return player;
+    }
+
+    public static void main(String args[]) throws IOException, JMException {
+        int gamesPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES_PER_PAIRING;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BOARD_SIZE;
+        int searchDepth = args.length > 2 ? Integer.parseInt(args[2]) : AIPlayer.DEFAULT_SEARCH_DEPTH;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        GameLogWriter gameLog = args.length > 5 ?
+                new GameLogWriter(Paths.get(args[5]), boardSize, boardSize, boardSize) : null;
+
+        GameMetrics.registerMBean();
+        MetricsReporter reporter = MetricsReporter.fromSystemProperty();
+        Tournament tournament = new Tournament(boardSize, gamesPerPairing, searchDepth, threads, seed);
+        tournament.setGameLog(gameLog);
+        System.out.println("Playing " + gamesPerPairing + " games per pairing on a " + boardSize + "x" + boardSize +
+                " board with " + threads + " threads and seed " + seed + ".");
+        long games = 0;
+        long elapsedNanos = 0;
+        for (PairingResult result : tournament.run()) {
+            System.out.println(result);
+            games += result.getGames();
+            elapsedNanos += result.getElapsedNanos();
+        }
+        System.out.printf("Total: %d games in %.2f s (%.0f games/sec)%n", games, elapsedNanos / 1e9,
+                games / (elapsedNanos / 1e9));
+        if (gameLog != null) {
+            gameLog.close();
+            System.out.println("Recorded " + gameLog.getRecordCount() + " games to " + args[5]);
+        }
+        if (reporter != null) reporter.close();
+    }
+
+    /**
+     * Win, draw and loss counts for one ordered pairing of algorithms.
+     */
+    public static class PairingResult {
+        private final Algorithm first;
+        private final Algorithm second;
+        private long playerOneWins = 0;
+        private long playerTwoWins = 0;
+        private long draws = 0;
+        private long elapsedNanos = 0;
+        private final LatencyHistogram playerOneLatencies = new LatencyHistogram();
+        private final LatencyHistogram playerTwoLatencies = new LatencyHistogram();
+
+        PairingResult(Algorithm first, Algorithm second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        void add(PairingResult other) {
+            playerOneWins += other.playerOneWins;
+            playerTwoWins += other.playerTwoWins;
+            draws += other.draws;
+            playerOneLatencies.add(other.playerOneLatencies);
+            playerTwoLatencies.add(other.playerTwoLatencies);
+        }
+
+        void record(GameResult result) {
+            if (result.isDraw()) draws++;
+            else if (result.getWinner() == Board.PlayerId.PLAYER_ONE) playerOneWins++;
+            else playerTwoWins++;
+        }
+
+        public Algorithm getFirst() {
+            return first;
+        }
+
+        public Algorithm getSecond() {
+            return second;
+        }
+
+        public long getPlayerOneWins() {
+            return playerOneWins;
+        }
+
+        public long getPlayerTwoWins() {
+            return playerTwoWins;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        public long getGames() {
+            return playerOneWins + playerTwoWins + draws;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The time player one took to choose each of its moves
+         */
+        public LatencyHistogram getPlayerOneLatencies() {
+            return playerOneLatencies;
+        }
+
+        /**
+         * @return The time player two took to choose each of its moves
+         */
+        public LatencyHistogram getPlayerTwoLatencies() {
+            return playerTwoLatencies;
+        }
+
+        public double getGamesPerSecond() {
+            return getGames() / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            double games = getGames();
+            return String.format("%-7s vs %-7s: P1 wins %5.1f%%, draws %5.1f%%, P2 wins %5.1f%% (%.0f games/sec, " +
+                            "p99 move P1 %.3f ms, P2 %.3f ms)",
+                    first, second, 100 * playerOneWins / games, 100 * draws / games, 100 * playerTwoWins / games,
+                    getGamesPerSecond(), playerOneLatencies.getPercentile(99) / 1e6,
+                    playerTwoLatencies.getPercentile(99) / 1e6);
+        }
+    }
+}
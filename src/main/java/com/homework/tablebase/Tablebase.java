@@ -0,0 +1,235 @@
+package com.homework.tablebase;
+
+import com.homework.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Perfect play for every position of a small board, solved ahead of time. Looking up a position is a single read at
+ * an index computed from its cells, so answering takes no search at all.
+ *
+ * Positions are indexed from the point of view of the player to move: each cell is a base 3 digit that is 0 when
+ * free, 1 when it belongs to the player to move and 2 when it belongs to the opponent. This way the same entry serves
+ * both players, whoever moved first. Each entry is one byte:
+ * 1) Bits 0-5: the best move, as a position counting from 0
+ * 2) Bits 6-7: the outcome for the player to move with perfect play, or 0 for a position that cannot occur in a game
+ * <p>
+ * A tablebase file is a header of five ints (magic number, format version, rows, columns and win length) followed by
+ * one entry per index. Files are memory mapped rather than read, so opening one is instant and its pages are shared
+ * by every process using it. 4x4 takes 43MB, 3x3 only 20KB.
+ */
+public class Tablebase {
+    /**
+     * The result of a position for the player to move, assuming both players play perfectly from there.
+     */
+    public enum Outcome {
+        WIN, DRAW, LOSS
+    }
+
+    // Boards with more cells have too many positions to index with an int
+    public static final int MAX_CELLS = 16;
+
+    // System property naming the directory to look for tablebase files in
+    public static final String DIRECTORY_PROPERTY = "tictactoe.tablebase.dir";
+
+    // Boards this small are solved in well under a second, so they are generated when no file is available
+    private static final int MAX_GENERATED_CELLS = 9;
+
+    // "TTTB"
+    static final int MAGIC = 0x54545442;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    static final int MOVE_MASK = 0x3F;
+    static final int OUTCOME_SHIFT = 6;
+    static final int UNREACHABLE = 0;
+    static final int WIN = 1;
+    static final int DRAW = 2;
+    static final int LOSS = 3;
+
+    // Tablebases already opened or generated, by board shape
+    private static final Map<String, Tablebase> CACHE = new HashMap<String, Tablebase>();
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final ByteBuffer entries;
+    private final int[] powersOfThree;
+
+    private Tablebase(int rows, int cols, int winLength, ByteBuffer entries) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.entries = entries;
+        this.powersOfThree = powersOfThree(rows * cols);
+    }
+
+    /**
+     * Solve a board in memory.
+     * @throws IllegalArgumentException if the board has more than MAX_CELLS cells
+     */
+    public static Tablebase generate(int rows, int cols, int winLength) {
+        byte[] entries = new TablebaseGenerator(rows, cols, winLength).solve();
+        return new Tablebase(rows, cols, winLength, ByteBuffer.wrap(entries));
+    }
+
+    /**
+     * Memory map a tablebase file.
+     * @throws IOException if the file can't be read or is not a tablebase
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException(path + " is not a tablebase.");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported tablebase version " + version + " in " + path);
+            int rows = header.getInt();
+            int cols = header.getInt();
+            int winLength = header.getInt();
+            if (rows < 1 || cols < 1 || rows * cols > MAX_CELLS) {
+                throw new IOException("Invalid board size " + rows + "x" + cols + " in " + path);
+            }
+
+            long size = powersOfThree(rows * cols + 1)[rows * cols];
+            if (channel.size() != HEADER_BYTES + size) throw new IOException(path + " is truncated.");
+            // The mapping stays valid after the channel is closed
+            ByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, size);
+            return new Tablebase(rows, cols, winLength, entries);
+        }
+    }
+
+    /**
+     * Find the tablebase for a board shape. A file named by fileName in the directory given by the
+     * tictactoe.tablebase.dir system property is used if there is one. Otherwise boards of up to 9 cells are solved
+     * in memory. Tablebases are cached, so each is only opened or generated once.
+     * @return The tablebase, or null if there is none for the board
+     */
+    public static synchronized Tablebase find(int rows, int cols, int winLength) {
+        String name = fileName(rows, cols, winLength);
+        Tablebase tablebase = CACHE.get(name);
+        if (tablebase != null) return tablebase;
+
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        Path path = directory == null ? null : Paths.get(directory, name);
+        if (path != null && Files.exists(path)) {
+            try {
+                tablebase = open(path);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open tablebase " + path, e);
+            }
+        } else if (rows * cols <= MAX_GENERATED_CELLS) {
+            tablebase = generate(rows, cols, winLength);
+        } else {
+            return null;
+        }
+        CACHE.put(name, tablebase);
+        return tablebase;
+    }
+
+    /**
+     * @return The file name a tablebase for the board shape is stored under, e.g. tablebase-4x4-4.ttb
+     */
+    public static String fileName(int rows, int cols, int winLength) {
+        return "tablebase-" + rows + "x" + cols + "-" + winLength + ".ttb";
+    }
+
+    /**
+     * Write the tablebase to a file that open can map.
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(winLength);
+        header.flip();
+        ByteBuffer body = entries.duplicate();
+        body.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            while (body.hasRemaining()) channel.write(body);
+        }
+    }
+
+    /**
+     * @return True if the tablebase was solved for boards of this shape and win length
+     */
+    public boolean covers(Board b) {
+        return b.getRows() == rows && b.getCols() == cols && b.getWinLength() == winLength;
+    }
+
+    /**
+     * @param b      A board in progress that the tablebase covers
+     * @param mover  The player to move
+     * @return The best move for the player: the quickest win, a draw, or failing that the slowest loss
+     * @throws IllegalArgumentException if the game is over or the board is not covered
+     */
+    public int getBestMove(Board b, Board.PlayerId mover) {
+        return (entry(b, mover) & MOVE_MASK) + 1;
+    }
+
+    /**
+     * @return The outcome for the player to move if both players play perfectly from here
+     * @throws IllegalArgumentException if the game is over or the board is not covered
+     */
+    public Outcome getOutcome(Board b, Board.PlayerId mover) {
+        switch (entry(b, mover) >>> OUTCOME_SHIFT) {
+            case WIN: return Outcome.WIN;
+            case LOSS: return Outcome.LOSS;
+            default: return Outcome.DRAW;
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    private int entry(Board b, Board.PlayerId mover) {
+        if (!covers(b)) {
+            throw new IllegalArgumentException("Tablebase for " + rows + "x" + cols + " boards with win length " +
+                    winLength + " does not cover a " + b.getRows() + "x" + b.getCols() + " board with win length " +
+                    b.getWinLength());
+        }
+        if (b.isBoardWon() || !b.validMovesRemain()) {
+            throw new IllegalArgumentException("The game is already over.");
+        }
+
+        int index = 0;
+        for (int position = 1; position <= powersOfThree.length; position++) {
+            Board.PlayerId owner = b.getCellOwner(position);
+            if (owner != null) index += powersOfThree[position - 1] * (owner == mover ? 1 : 2);
+        }
+        int entry = entries.get(index) & 0xFF;
+        if (entry >>> OUTCOME_SHIFT == UNREACHABLE) {
+            throw new IllegalArgumentException("The position can't be reached with " + mover + " to move.");
+        }
+        return entry;
+    }
+
+    /**
+     * @return 3^0 to 3^(cells - 1)
+     */
+    static int[] powersOfThree(int cells) {
+        int[] powers = new int[cells];
+        int power = 1;
+        for (int i = 0; i < cells; i++) {
+            powers[i] = power;
+            power *= 3;
+        }
+        return powers;
+    }
+}
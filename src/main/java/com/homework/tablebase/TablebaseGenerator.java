@@ -0,0 +1,121 @@
+package com.homework.tablebase;
+
+import com.homework.Board;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Solves a small board exhaustively by negamax over every position reachable from the empty board, remembering each
+ * position's result so it is solved only once, however many move orders lead to it.
+ *
+ * Run with:
+ *   java -cp target/tictactoe-1.0-SNAPSHOT.jar com.homework.tablebase.TablebaseGenerator [boardSize] [directory]
+ * to write e.g. tablebase-4x4-4.ttb into the directory. 4x4 takes about 130MB of heap while solving.
+ */
+public class TablebaseGenerator {
+    // Score of a won position. A win d plies away scores WIN_SCORE - d, so the quickest win scores highest.
+    private static final int WIN_SCORE = 100;
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final int cells;
+    private final int[] powersOfThree;
+
+    // One entry per position in the tablebase layout, and the number of plies to the end of the game with perfect play
+    private byte[] entries;
+    private byte[] distances;
+
+    /**
+     * @throws IllegalArgumentException if the board has more than Tablebase.MAX_CELLS cells
+     */
+    public TablebaseGenerator(int rows, int cols, int winLength) {
+        if (rows * cols > Tablebase.MAX_CELLS) {
+            throw new IllegalArgumentException("Boards larger than " + Tablebase.MAX_CELLS + " cells have too many " +
+                    "positions to tabulate. Board size: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.cells = rows * cols;
+        this.powersOfThree = Tablebase.powersOfThree(cells);
+    }
+
+    /**
+     * @return The tablebase entries, one byte per position index
+     */
+    byte[] solve() {
+        int size = powersOfThree[cells - 1] * 3;
+        entries = new byte[size];
+        distances = new byte[size];
+        solve(new Board(rows, cols, winLength), Board.PlayerId.PLAYER_ONE, 0, 0);
+        distances = null;
+        return entries;
+    }
+
+    /**
+     * @param index   The position's index from the point of view of the player to move
+     * @param swapped The position's index from the point of view of the opponent
+     * @return The score of the position for the player to move
+     */
+    private int solve(Board b, Board.PlayerId mover, int index, int swapped) {
+        int entry = entries[index] & 0xFF;
+        if (entry != 0) return score(entry >>> Tablebase.OUTCOME_SHIFT, distances[index]);
+
+        Board.PlayerId opponent = mover == Board.PlayerId.PLAYER_ONE ?
+                Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+        int best = Integer.MIN_VALUE;
+        int bestMove = 0;
+        for (int position = 1; position <= cells; position++) {
+            if (!b.isValidMove(position)) continue;
+
+            int digit = powersOfThree[position - 1];
+            b.move(position, mover);
+            int score;
+            if (b.isBoardWon()) {
+                score = WIN_SCORE - 1;
+            } else if (!b.validMovesRemain()) {
+                score = 0;
+            } else {
+                // The opponent moves next, so their view of the board becomes the one indexed from the mover's side
+                score = -solve(b, opponent, swapped + 2 * digit, index + digit);
+                // The result is one ply further away from this position than from the next
+                if (score > 0) score--;
+                else if (score < 0) score++;
+            }
+            b.unmove();
+
+            if (score > best) {
+                best = score;
+                bestMove = position;
+            }
+        }
+
+        int outcome = best > 0 ? Tablebase.WIN : best < 0 ? Tablebase.LOSS : Tablebase.DRAW;
+        entries[index] = (byte) ((outcome << Tablebase.OUTCOME_SHIFT) | (bestMove - 1));
+        distances[index] = (byte) (best == 0 ? 0 : WIN_SCORE - Math.abs(best));
+        return best;
+    }
+
+    private static int score(int outcome, int distance) {
+        switch (outcome) {
+            case Tablebase.WIN: return WIN_SCORE - distance;
+            case Tablebase.LOSS: return -(WIN_SCORE - distance);
+            default: return 0;
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        int boardSize = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Path directory = Paths.get(args.length > 1 ? args[1] : ".");
+
+        long start = System.nanoTime();
+        Tablebase tablebase = Tablebase.generate(boardSize, boardSize, boardSize);
+        Path path = directory.resolve(Tablebase.fileName(boardSize, boardSize, boardSize));
+        tablebase.write(path);
+        System.out.printf("Solved %dx%d in %.1f s and wrote %s%n", boardSize, boardSize,
+                (System.nanoTime() - start) / 1e9, path);
+    }
+}
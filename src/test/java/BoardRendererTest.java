@@ -0,0 +1,82 @@
+import com.homework.Board;
+import com.homework.BoardRenderer;
+import com.homework.Player;
+import com.homework.impl.AIPlayer;
+import com.homework.sim.GameRunner;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoardRendererTest {
+    @Test
+    public void testFullFrame() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BoardRenderer renderer = new BoardRenderer(out);
+        Board b = new Board(2, 3, 2);
+        b.move(1, Board.PlayerId.PLAYER_ONE);
+        b.move(6, Board.PlayerId.PLAYER_TWO);
+        renderer.render(b);
+        String frame = out.toString();
+        assertEquals("Game board: \n" +
+                "*********\n" +
+                "* X - - *\n" +
+                "* - - O *\n" +
+                "*********\n", frame);
+
+        // Without diff mode every frame is drawn in full
+        renderer.render(b);
+        assertEquals(frame + frame, out.toString());
+    }
+
+    @Test
+    public void testDiffFrame() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BoardRenderer renderer = new BoardRenderer(out, true);
+        Board b = new Board(3);
+        renderer.render(b);
+        String first = out.toString();
+
+        out.reset();
+        b.move(6, Board.PlayerId.PLAYER_ONE);
+        renderer.render(b);
+        // Up 3 lines to the middle row, across to the third cell, then back down
+        assertEquals("\u001B[3A\u001B[7GX\u001B[3B\r", out.toString());
+
+        out.reset();
+        renderer.render(b);
+        assertEquals(0, out.size());
+
+        out.reset();
+        b.unmove();
+        renderer.render(b);
+        assertEquals("\u001B[3A\u001B[7G-\u001B[3B\r", out.toString());
+
+        out.reset();
+        renderer.reset();
+        renderer.render(b);
+        assertEquals(first, out.toString());
+
+        // A board of a different shape is drawn in full
+        out.reset();
+        renderer.render(new Board(4));
+        assertTrue(out.toString().startsWith("Game board: "));
+    }
+
+    @Test
+    public void testRunnerDrawsEveryMove() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Player> players = Arrays.<Player>asList(
+                new AIPlayer(Board.PlayerId.PLAYER_ONE, "A", AIPlayer.Algorithm.GREEDY),
+                new AIPlayer(Board.PlayerId.PLAYER_TWO, "B", AIPlayer.Algorithm.GREEDY));
+        Board b = new Board(3);
+        new GameRunner(new BoardRenderer(out)).run(players, b);
+
+        int frames = out.toString().split("Game board: ", -1).length - 1;
+        assertEquals(b.getMoveCount() + 1, frames);
+    }
+}
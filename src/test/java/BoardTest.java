@@ -1,9 +1,24 @@
 import com.homework.Board;
+import com.homework.BoardListener;
+import com.homework.BoardSnapshot;
+import com.homework.SnapshotPublisher;
+import com.homework.Symmetry;
+import com.homework.impl.AIPlayer;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.SplittableRandom;
+
 import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class BoardTest {
@@ -193,4 +208,600 @@ public class BoardTest {
         assertFalse(b.validMovesRemain());
         assertFalse(b.isBoardWon());
     }
+
+    @Test
+    public void testWinAcrossBoardSizes() {
+        // Sizes up to 8 fit in a single bitboard word, larger sizes span several words. Check every kind of line.
+        for (int boardSize = 2; boardSize <= 12; boardSize++) {
+            for (int line = 0; line < 4; line++) {
+                Board b = new Board(boardSize);
+                for (int i = 0; i < boardSize; i++) {
+                    int row = line == 1 ? 0 : i;
+                    int col = line == 0 ? 0 : (line == 3 ? boardSize - 1 - i : i);
+                    assertFalse(b.isBoardWon());
+                    assertTrue(b.move(b.getMovePosition(row, col), Board.PlayerId.PLAYER_ONE));
+                    assertEquals(Board.PlayerId.PLAYER_ONE, b.getCellOwner(b.getMovePosition(row, col)));
+
+                    // Player two fills cells that never complete a line for either player
+                    if (i < boardSize - 1) {
+                        int otherRow = line == 1 ? 1 : i;
+                        int otherCol = line == 1 ? i : (line == 0 ? 1 : (line == 3 ? 0 : boardSize - 1));
+                        if (line == 2 && otherRow == otherCol) otherCol = 0;
+                        assertTrue(b.move(b.getMovePosition(otherRow, otherCol), Board.PlayerId.PLAYER_TWO));
+                    }
+                }
+                assertTrue("Size " + boardSize + " line " + line, b.isBoardWon());
+            }
+        }
+    }
+
+    @Test
+    public void testUnmoveRestoresState() {
+        // Play to a win, then unwind every move and check the board is back to where it was at each step
+        int[] moves = {1, 4, 2, 5, 3};
+        for (int i = 0; i < moves.length; i++) {
+            Board.PlayerId playerId = i % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO;
+            assertTrue(b.move(moves[i], playerId));
+        }
+        assertTrue(b.isBoardWon());
+
+        for (int i = moves.length - 1; i >= 0; i--) {
+            assertEquals(moves[i], b.unmove());
+            assertFalse(b.isBoardWon());
+            assertTrue(b.isValidMove(moves[i]));
+            assertEquals(i, b.getMoveCount());
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, b.getRowTotals()[i]);
+            assertEquals(0, b.getColTotals()[i]);
+        }
+        assertEquals(0, b.getTopToBottomDiagTotal());
+        assertEquals(0, b.getBottomToTopDiagTotal());
+
+        // Either player may start again on an empty board
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertEquals(5, b.unmove());
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_ONE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnmoveEmptyBoard() {
+        b.unmove();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnmoveRestoresTurnOrder() {
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_TWO));
+        b.unmove();
+        b.move(2, Board.PlayerId.PLAYER_ONE);
+    }
+
+    @Test
+    public void testZobristHash() {
+        assertEquals(0, b.getZobristHash());
+
+        // The same position reached through a different move order hashes the same
+        Board other = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(9, Board.PlayerId.PLAYER_ONE));
+        assertTrue(other.move(9, Board.PlayerId.PLAYER_ONE));
+        assertTrue(other.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(other.move(1, Board.PlayerId.PLAYER_ONE));
+        assertEquals(b.getZobristHash(), other.getZobristHash());
+
+        // A different owner for the same cell hashes differently, and undoing restores the earlier hash
+        long hash = b.getZobristHash();
+        assertTrue(b.move(3, Board.PlayerId.PLAYER_TWO));
+        long playerTwoHash = b.getZobristHash();
+        b.unmove();
+        assertEquals(hash, b.getZobristHash());
+        b.unmove();
+        assertTrue(b.move(3, Board.PlayerId.PLAYER_ONE));
+        assertTrue(playerTwoHash != b.getZobristHash());
+
+        while (b.getMoveCount() > 0) b.unmove();
+        assertEquals(0, b.getZobristHash());
+    }
+
+    @Test
+    public void testSymmetryRoundTrip() {
+        for (int boardSize = 2; boardSize <= 5; boardSize++) {
+            for (Symmetry symmetry : Symmetry.values()) {
+                boolean[] seen = new boolean[boardSize * boardSize + 1];
+                for (int position = 1; position <= boardSize * boardSize; position++) {
+                    int mapped = symmetry.apply(position, boardSize);
+                    assertFalse(seen[mapped]);
+                    seen[mapped] = true;
+                    assertEquals(position, symmetry.inverse().apply(mapped, boardSize));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCanonicalHash() {
+        /**
+         * Every rotation and reflection of
+         * X O -
+         * - - -
+         * - - X
+         * shares a canonical form, and the canonical symmetry maps each one onto the same board.
+         */
+        long canonicalHash = 0;
+        for (Symmetry symmetry : Symmetry.values()) {
+            Board board = new Board(3);
+            assertTrue(board.move(symmetry.apply(1, 3), Board.PlayerId.PLAYER_ONE));
+            assertTrue(board.move(symmetry.apply(2, 3), Board.PlayerId.PLAYER_TWO));
+            assertTrue(board.move(symmetry.apply(9, 3), Board.PlayerId.PLAYER_ONE));
+            if (symmetry == Symmetry.IDENTITY) canonicalHash = board.getCanonicalHash();
+            assertEquals(canonicalHash, board.getCanonicalHash());
+
+            Board canonical = new Board(3);
+            Symmetry toCanonical = board.getCanonicalSymmetry();
+            assertTrue(canonical.move(toCanonical.apply(symmetry.apply(1, 3), 3), Board.PlayerId.PLAYER_ONE));
+            assertTrue(canonical.move(toCanonical.apply(symmetry.apply(2, 3), 3), Board.PlayerId.PLAYER_TWO));
+            assertTrue(canonical.move(toCanonical.apply(symmetry.apply(9, 3), 3), Board.PlayerId.PLAYER_ONE));
+            assertEquals(canonicalHash, canonical.getZobristHash());
+        }
+
+        // A board with a different shape does not share it
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(9, Board.PlayerId.PLAYER_ONE));
+        assertTrue(canonicalHash != b.getCanonicalHash());
+        assertTrue(b.isSymmetricUnder(Symmetry.TRANSPOSE));
+        assertTrue(b.isSymmetricUnder(Symmetry.ROTATE_180));
+        assertFalse(b.isSymmetricUnder(Symmetry.ROTATE_90));
+    }
+
+    @Test
+    public void testFreeCells() {
+        Board b = new Board(4);
+        int[] initialOrder = freeCells(b);
+        assertEquals(16, initialOrder.length);
+
+        int[] moves = {6, 1, 16, 11, 7, 2};
+        for (int i = 0; i < moves.length; i++) {
+            assertTrue(b.move(moves[i], i % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO));
+            assertEquals(16 - i - 1, b.getFreeCellCount());
+
+            // The free set holds exactly the valid moves
+            boolean[] free = new boolean[17];
+            for (int position : freeCells(b)) {
+                assertTrue(b.isValidMove(position));
+                assertFalse(free[position]);
+                free[position] = true;
+            }
+        }
+
+        // Undoing every move restores the original order of the free set
+        while (b.getMoveCount() > 0) b.unmove();
+        int[] restoredOrder = freeCells(b);
+        for (int i = 0; i < initialOrder.length; i++) {
+            assertEquals(initialOrder[i], restoredOrder[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFreeCellOutOfRange() {
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        b.getFreeCell(8);
+    }
+
+    private static int[] freeCells(Board b) {
+        int[] cells = new int[b.getFreeCellCount()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = b.getFreeCell(i);
+        }
+        return cells;
+    }
+
+    @Test
+    public void testLineTotalRankingsMatchFullScan() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int boardSize = 3; boardSize <= 7; boardSize += 2) {
+            for (int game = 0; game < 20; game++) {
+                Board b = new Board(boardSize);
+                Board.PlayerId player = Board.PlayerId.PLAYER_ONE;
+                while (b.validMovesRemain() && !b.isBoardWon()) {
+                    assertEquals(scanLowestCombinedTotal(b), b.getFreeCellWithLowestCombinedTotal());
+                    assertEquals(scanHighestMaxTotal(b), b.getFreeCellWithHighestMaxTotal());
+
+                    // Occasionally step back to check the rankings follow unmove too
+                    if (b.getMoveCount() > 0 && random.nextInt(4) == 0) {
+                        b.unmove();
+                        player = player == Board.PlayerId.PLAYER_ONE ?
+                                Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+                        continue;
+                    }
+                    assertTrue(b.move(b.getFreeCell(random.nextInt(b.getFreeCellCount())), player));
+                    player = player == Board.PlayerId.PLAYER_ONE ?
+                            Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRankingOnFullBoard() {
+        int[] moves = {1, 3, 2, 4, 6, 5, 7, 9, 8};
+        for (int i = 0; i < moves.length; i++) {
+            assertTrue(b.move(moves[i], i % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO));
+        }
+        b.getFreeCellWithLowestCombinedTotal();
+    }
+
+    private static int scanLowestCombinedTotal(Board b) {
+        int best = -1;
+        int bestTotal = Integer.MAX_VALUE;
+        for (int row = 0; row < b.getBoardSize(); row++) {
+            for (int col = 0; col < b.getBoardSize(); col++) {
+                int position = b.getMovePosition(row, col);
+                if (b.isValidMove(position) && b.getCombinedLineTotal(row, col) < bestTotal) {
+                    bestTotal = b.getCombinedLineTotal(row, col);
+                    best = position;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int scanHighestMaxTotal(Board b) {
+        int best = -1;
+        int bestTotal = Integer.MIN_VALUE;
+        for (int row = 0; row < b.getBoardSize(); row++) {
+            for (int col = 0; col < b.getBoardSize(); col++) {
+                int position = b.getMovePosition(row, col);
+                if (b.isValidMove(position) && b.getMaxLineTotal(row, col) > bestTotal) {
+                    bestTotal = b.getMaxLineTotal(row, col);
+                    best = position;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void testKInARow() {
+        // Five in a row anywhere on a 15x15 board wins, in every direction, including diagonals off the main ones
+        int[][] starts = {{3, 2}, {2, 9}, {8, 1}, {4, 13}};
+        int[][] steps = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int line = 0; line < steps.length; line++) {
+            Board b = new Board(15, 5);
+            assertEquals(5, b.getWinLength());
+
+            // Claim the two ends and the middle first, so the winning move joins two separate runs
+            int[] order = {0, 4, 1, 3, 2};
+            for (int i = 0; i < order.length; i++) {
+                int row = starts[line][0] + order[i] * steps[line][0];
+                int col = starts[line][1] + order[i] * steps[line][1];
+                assertFalse(b.isBoardWon());
+                assertTrue(b.move(b.getMovePosition(row, col), Board.PlayerId.PLAYER_ONE));
+                if (i < order.length - 1) {
+                    // Player two plays along the bottom row, well away from player one
+                    assertTrue(b.move(b.getMovePosition(14, 2 * i), Board.PlayerId.PLAYER_TWO));
+                }
+            }
+            assertTrue("Line " + line, b.isBoardWon());
+        }
+    }
+
+    @Test
+    public void testKInARowNeedsUnbrokenLine() {
+        // X X O X X X on the first row of a 7x7 board does not win with four in a row needed
+        Board b = new Board(7, 4);
+        int[] xMoves = {1, 2, 4, 5, 6};
+        int[] oMoves = {3, 49, 47, 45, 43};
+        for (int i = 0; i < xMoves.length; i++) {
+            assertTrue(b.move(xMoves[i], Board.PlayerId.PLAYER_ONE));
+            assertFalse(b.isBoardWon());
+            assertTrue(b.move(oMoves[i], Board.PlayerId.PLAYER_TWO));
+            assertFalse(b.isBoardWon());
+        }
+        assertTrue(b.move(7, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.isBoardWon());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWinLengthLongerThanBoard() {
+        new Board(3, 4);
+    }
+
+    @Test
+    public void testCopy() {
+        Board b = new Board(4, 5, 3);
+        int[] moves = {7, 12, 3, 20, 9};
+        Board.PlayerId player = Board.PlayerId.PLAYER_ONE;
+        for (int move : moves) {
+            assertTrue(b.move(move, player));
+            player = player == Board.PlayerId.PLAYER_ONE ? Board.PlayerId.PLAYER_TWO : Board.PlayerId.PLAYER_ONE;
+        }
+
+        Board copy = new Board(b);
+        assertEquals(b.getZobristHash(), copy.getZobristHash());
+        assertEquals(b.getMoveCount(), copy.getMoveCount());
+        for (int i = 0; i < b.getFreeCellCount(); i++) {
+            assertEquals(b.getFreeCell(i), copy.getFreeCell(i));
+        }
+
+        // The copy is independent of the original
+        assertTrue(copy.move(1, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.isValidMove(1));
+        assertEquals(moves.length, b.getMoveCount());
+    }
+
+    @Test
+    public void testRectangularBoard() {
+        // Four in a row on a 6x7 board, as in Connect Four but without gravity
+        Board b = new Board(6, 7, 4);
+        assertEquals(6, b.getRows());
+        assertEquals(7, b.getCols());
+        assertEquals(42, b.getCellCount());
+        assertFalse(b.isSquare());
+        assertEquals(6, b.getRowTotals().length);
+        assertEquals(7, b.getColTotals().length);
+        assertEquals(42, b.getFreeCellCount());
+        assertFalse(b.isValidMove(43));
+        assertEquals(42, b.getMovePosition(5, 6));
+
+        // X fills the last column from the bottom up while O plays along the top row
+        for (int i = 0; i < 3; i++) {
+            assertTrue(b.move(b.getMovePosition(5 - i, 6), Board.PlayerId.PLAYER_ONE));
+            assertTrue(b.move(b.getMovePosition(0, i), Board.PlayerId.PLAYER_TWO));
+            assertFalse(b.isBoardWon());
+        }
+        assertEquals(3, b.getColTotals()[6]);
+        assertEquals(-3, b.getRowTotals()[0]);
+        assertEquals(0, b.getTopToBottomDiagTotal());
+        assertEquals(4, b.getFreeCellWithLowestCombinedTotal());
+        assertTrue(b.move(b.getMovePosition(2, 6), Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.isBoardWon());
+
+        b.unmove();
+        assertFalse(b.isBoardWon());
+        assertEquals(36, b.getFreeCellCount());
+    }
+
+    @Test
+    public void testRectangularFullLine() {
+        // With the win length equal to the longer side, only a full row of a 2x4 board wins
+        Board b = new Board(2, 4, 4);
+        for (int col = 0; col < 3; col++) {
+            assertTrue(b.move(b.getMovePosition(0, col), Board.PlayerId.PLAYER_ONE));
+            assertTrue(b.move(b.getMovePosition(1, col), Board.PlayerId.PLAYER_TWO));
+            assertFalse(b.isBoardWon());
+        }
+        assertTrue(b.move(4, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.isBoardWon());
+    }
+
+    @Test
+    public void testRectangularSymmetries() {
+        assertEquals(4, Symmetry.forBoard(3, 5).length);
+        assertFalse(Symmetry.TRANSPOSE.fitsBoard(3, 5));
+        for (Symmetry symmetry : Symmetry.forBoard(3, 5)) {
+            boolean[] seen = new boolean[16];
+            for (int position = 1; position <= 15; position++) {
+                int mapped = symmetry.apply(position, 3, 5);
+                assertFalse(seen[mapped]);
+                seen[mapped] = true;
+                assertEquals(position, symmetry.inverse().apply(mapped, 3, 5));
+            }
+        }
+
+        // Mirror images of a move on a 3x5 board share a canonical form
+        Board left = new Board(3, 5, 3);
+        Board right = new Board(3, 5, 3);
+        assertTrue(left.move(6, Board.PlayerId.PLAYER_ONE));
+        assertTrue(right.move(10, Board.PlayerId.PLAYER_ONE));
+        assertEquals(left.getCanonicalHash(), right.getCanonicalHash());
+        assertTrue(left.isSymmetricUnder(Symmetry.FLIP_VERTICAL));
+        assertFalse(left.isSymmetricUnder(Symmetry.FLIP_HORIZONTAL));
+        assertFalse(left.isSymmetricUnder(Symmetry.TRANSPOSE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRectangularBoardHasNoSingleSize() {
+        new Board(3, 5, 3).getBoardSize();
+    }
+
+    @Test
+    public void testListenerReportsWinningLine() {
+        RecordingListener listener = new RecordingListener();
+        Board board = new Board(5, 5, 3);
+        board.addListener(listener);
+        // X claims 7, 13 and 19 down the diagonal, and 1 beyond it, with O elsewhere
+        int[] moves = {7, 2, 1, 3, 19, 10, 13};
+        for (int i = 0; i < moves.length; i++) {
+            board.move(moves[i], i % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO);
+        }
+        assertEquals(moves.length, listener.moves.size());
+        assertEquals(Integer.valueOf(13), listener.moves.get(moves.length - 1));
+        assertEquals(Board.PlayerId.PLAYER_ONE, listener.winner);
+        assertArrayEquals(new int[] {1, 7, 13, 19}, listener.winningLine);
+        assertFalse(listener.drawn);
+    }
+
+    @Test
+    public void testListenerReportsDraw() {
+        RecordingListener listener = new RecordingListener();
+        b.addListener(listener);
+        // X O X / X O O / O X X
+        int[] moves = {1, 2, 3, 5, 4, 6, 8, 7, 9};
+        for (int i = 0; i < moves.length; i++) {
+            b.move(moves[i], i % 2 == 0 ? Board.PlayerId.PLAYER_ONE : Board.PlayerId.PLAYER_TWO);
+        }
+        assertTrue(listener.drawn);
+        assertNull(listener.winner);
+        assertEquals(9, listener.moves.size());
+    }
+
+    @Test
+    public void testListenersDoNotSeeSearches() {
+        RecordingListener listener = new RecordingListener();
+        b.addListener(listener);
+        b.move(1, Board.PlayerId.PLAYER_ONE);
+        int move = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MINIMAX).getNextMove(b);
+        b.move(move, Board.PlayerId.PLAYER_TWO);
+        assertEquals(2, listener.moves.size());
+
+        // Searching leaves the listeners as they were
+        assertFalse(b.setListenersMuted(true));
+        b.move(2 == move ? 3 : 2, Board.PlayerId.PLAYER_ONE);
+        b.unmove();
+        assertTrue(b.setListenersMuted(false));
+        assertEquals(2, listener.moves.size());
+
+        b.removeListener(listener);
+        assertFalse(b.hasListeners());
+        b.move(2 == move ? 3 : 2, Board.PlayerId.PLAYER_ONE);
+        assertEquals(2, listener.moves.size());
+    }
+
+    @Test
+    public void testSnapshotIsUnaffectedByLaterMoves() {
+        b.move(1, Board.PlayerId.PLAYER_ONE);
+        b.move(5, Board.PlayerId.PLAYER_TWO);
+        BoardSnapshot snapshot = b.snapshot();
+        assertSame(snapshot, b.snapshot());
+
+        // Take back a shared move and replace it, then carry on
+        b.unmove();
+        b.move(9, Board.PlayerId.PLAYER_TWO);
+        b.move(2, Board.PlayerId.PLAYER_ONE);
+        assertNotSame(snapshot, b.snapshot());
+
+        assertEquals(2, snapshot.getMoveCount());
+        assertEquals(5, snapshot.getMove(1));
+        assertEquals(Board.PlayerId.PLAYER_TWO, snapshot.getCellOwner(5));
+        assertTrue(snapshot.isFree(9));
+        assertTrue(snapshot.isFree(2));
+        assertEquals(Board.PlayerId.PLAYER_TWO, snapshot.getLastMove());
+        assertFalse(snapshot.isBoardWon());
+
+        Board copy = snapshot.toBoard();
+        assertEquals(snapshot.getCanonicalHash(), copy.getCanonicalHash());
+        assertEquals(Board.PlayerId.PLAYER_ONE, copy.getCellOwner(1));
+        assertEquals(9, b.getMove(1));
+    }
+
+    @Test
+    public void testSnapshotsReadConcurrently() throws InterruptedException {
+        final Board board = new Board(8, 4);
+        final SnapshotPublisher publisher = new SnapshotPublisher(board);
+        board.addListener(publisher);
+        final AtomicBoolean playing = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (playing.get()) {
+                    BoardSnapshot snapshot = publisher.getLatest();
+                    int occupied = 0;
+                    for (int position = 1; position <= snapshot.getCellCount(); position++) {
+                        if (!snapshot.isFree(position)) occupied++;
+                    }
+                    for (int i = 0; i < snapshot.getMoveCount(); i++) {
+                        if (snapshot.isFree(snapshot.getMove(i))) failure.set("Move " + i + " is not on the board");
+                    }
+                    if (occupied != snapshot.getMoveCount()) {
+                        failure.set(occupied + " cells occupied after " + snapshot.getMoveCount() + " moves");
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        SplittableRandom random = new SplittableRandom(1);
+        Board.PlayerId[] players = {Board.PlayerId.PLAYER_ONE, Board.PlayerId.PLAYER_TWO};
+        for (int game = 0; game < 2000; game++) {
+            while (!board.isBoardWon() && board.validMovesRemain()) {
+                board.move(board.getFreeCell(random.nextInt(board.getFreeCellCount())),
+                        players[board.getMoveCount() % 2]);
+            }
+            while (board.getMoveCount() > 0) {
+                board.unmove();
+            }
+        }
+        playing.set(false);
+        reader.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void testResetMatchesNewBoard() {
+        Board board = new Board(5, 4);
+        Board fresh = new Board(5, 4);
+        SplittableRandom random = new SplittableRandom(7);
+        Board.PlayerId[] players = {Board.PlayerId.PLAYER_ONE, Board.PlayerId.PLAYER_TWO};
+        for (int game = 0; game < 50; game++) {
+            // Build the threat index so that reset has to keep it up to date too
+            board.getFreeCellWithHighestMaxTotal();
+            while (!board.isBoardWon() && board.validMovesRemain()) {
+                board.move(board.getFreeCell(random.nextInt(board.getFreeCellCount())),
+                        players[board.getMoveCount() % 2]);
+            }
+            board.reset();
+
+            assertEquals(0, board.getMoveCount());
+            assertFalse(board.isBoardWon());
+            assertEquals(fresh.getZobristHash(), board.getZobristHash());
+            assertArrayEquals(fresh.getRowTotals(), board.getRowTotals());
+            assertArrayEquals(fresh.getColTotals(), board.getColTotals());
+            assertEquals(0, board.getTopToBottomDiagTotal());
+            assertEquals(0, board.getBottomToTopDiagTotal());
+            assertEquals(fresh.getFreeCellCount(), board.getFreeCellCount());
+            for (int i = 0; i < fresh.getFreeCellCount(); i++) {
+                assertEquals(fresh.getFreeCell(i), board.getFreeCell(i));
+            }
+            assertEquals(fresh.getFreeCellWithHighestMaxTotal(), board.getFreeCellWithHighestMaxTotal());
+            assertEquals(fresh.getFreeCellWithLowestCombinedTotal(), board.getFreeCellWithLowestCombinedTotal());
+        }
+        // Either player may open the next game
+        assertTrue(board.move(13, Board.PlayerId.PLAYER_TWO));
+    }
+
+    @Test
+    public void testResetLeavesSnapshotIntact() {
+        b.move(1, Board.PlayerId.PLAYER_ONE);
+        b.move(5, Board.PlayerId.PLAYER_TWO);
+        BoardSnapshot snapshot = b.snapshot();
+        b.reset();
+        b.move(5, Board.PlayerId.PLAYER_ONE);
+        b.move(1, Board.PlayerId.PLAYER_TWO);
+
+        assertEquals(2, snapshot.getMoveCount());
+        assertEquals(1, snapshot.getMove(0));
+        assertEquals(Board.PlayerId.PLAYER_ONE, snapshot.getCellOwner(1));
+        assertEquals(Board.PlayerId.PLAYER_TWO, snapshot.getCellOwner(5));
+        assertEquals(Board.PlayerId.PLAYER_TWO, b.getCellOwner(1));
+        assertEquals(5, b.getMove(0));
+    }
+
+    private static class RecordingListener implements BoardListener {
+        final List<Integer> moves = new ArrayList<Integer>();
+        Board.PlayerId winner;
+        int[] winningLine;
+        boolean drawn;
+
+        @Override
+        public void onMove(Board b, int position, Board.PlayerId playerId) {
+            moves.add(position);
+        }
+
+        @Override
+        public void onWin(Board b, Board.PlayerId winner, int[] winningLine) {
+            this.winner = winner;
+            this.winningLine = winningLine;
+        }
+
+        @Override
+        public void onDraw(Board b) {
+            drawn = true;
+        }
+    }
 }
@@ -0,0 +1,216 @@
+import com.homework.Board;
+import com.homework.impl.AIPlayer;
+import com.homework.record.GameLogAnalyzer;
+import com.homework.record.GameLogReader;
+import com.homework.record.GameLogStats;
+import com.homework.record.GameLogWriter;
+import com.homework.sim.GameResult;
+import com.homework.sim.Tournament;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GameLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path path = folder.newFile().toPath();
+        int[] longGame = new int[300];
+        for (int i = 0; i < longGame.length; i++) {
+            longGame[i] = i + 1;
+        }
+        try (GameLogWriter writer = new GameLogWriter(path, 20, 20, 5)) {
+            writer.append(AIPlayer.Algorithm.MCTS, null,
+                    new GameResult(Board.PlayerId.PLAYER_TWO, null, Board.PlayerId.PLAYER_TWO, new int[] {400, 1, 21}));
+            writer.append(AIPlayer.Algorithm.RANDOM, AIPlayer.Algorithm.GREEDY,
+                    new GameResult(Board.PlayerId.PLAYER_ONE, Board.PlayerId.PLAYER_TWO, new int[0]));
+            writer.append(AIPlayer.Algorithm.EVIL, AIPlayer.Algorithm.EVIL, new GameResult(null, null, longGame));
+            assertEquals(3, writer.getRecordCount());
+        }
+
+        try (GameLogReader reader = new GameLogReader(path)) {
+            assertEquals(20, reader.getRows());
+            assertEquals(20, reader.getCols());
+            assertEquals(5, reader.getWinLength());
+
+            assertTrue(reader.next());
+            assertEquals(AIPlayer.Algorithm.MCTS, reader.getPlayerOneAlgorithm());
+            assertNull(reader.getPlayerTwoAlgorithm());
+            assertEquals(Board.PlayerId.PLAYER_TWO, reader.getWinner());
+            assertEquals(Board.PlayerId.PLAYER_TWO, reader.getFirstMover());
+            assertFalse(reader.isForfeit());
+            assertEquals(3, reader.getMoveCount());
+            assertEquals(400, reader.getMove(0));
+            Board b = reader.replay();
+            assertEquals(Board.PlayerId.PLAYER_TWO, b.getCellOwner(400));
+            assertEquals(Board.PlayerId.PLAYER_ONE, b.getCellOwner(1));
+
+            assertTrue(reader.next());
+            assertEquals(AIPlayer.Algorithm.GREEDY, reader.getPlayerTwoAlgorithm());
+            assertTrue(reader.isForfeit());
+            assertEquals(0, reader.getMoveCount());
+
+            assertTrue(reader.next());
+            assertNull(reader.getWinner());
+            assertEquals(300, reader.getMoveCount());
+            assertEquals(300, reader.getMove(299));
+
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testTournamentLog() throws IOException {
+        // Enough games to fill several blocks
+        Path path = folder.newFile().toPath();
+        Tournament tournament = new Tournament(3, 10000, 9, 2, 1);
+        Tournament.PairingResult result;
+        try (GameLogWriter writer = new GameLogWriter(path, 3, 3, 3)) {
+            tournament.setGameLog(writer);
+            result = tournament.play(AIPlayer.Algorithm.RANDOM, AIPlayer.Algorithm.GREEDY);
+        }
+        assertTrue(Files.size(path) > 64 * 1024);
+        // Each game takes a dozen bytes or so
+        assertTrue(Files.size(path) < 15 * 10000);
+
+        long games = 0;
+        long playerOneWins = 0;
+        try (GameLogReader reader = new GameLogReader(path)) {
+            while (reader.next()) {
+                games++;
+                assertEquals(AIPlayer.Algorithm.RANDOM, reader.getPlayerOneAlgorithm());
+                Board b = reader.replay();
+                if (reader.getWinner() == Board.PlayerId.PLAYER_ONE) {
+                    playerOneWins++;
+                    assertTrue(b.isBoardWon());
+                }
+            }
+        }
+        assertEquals(10000, games);
+        assertEquals(result.getPlayerOneWins(), playerOneWins);
+    }
+
+    @Test
+    public void testAnalyzer() throws IOException {
+        Path first = folder.newFile().toPath();
+        Path second = folder.newFile().toPath();
+        Tournament tournament = new Tournament(3, 5000, 9, 2, 1);
+        Tournament.PairingResult greedy;
+        Tournament.PairingResult random;
+        try (GameLogWriter writer = new GameLogWriter(first, 3, 3, 3)) {
+            tournament.setGameLog(writer);
+            greedy = tournament.play(AIPlayer.Algorithm.GREEDY, AIPlayer.Algorithm.RANDOM);
+        }
+        try (GameLogWriter writer = new GameLogWriter(second, 3, 3, 3)) {
+            tournament.setGameLog(writer);
+            random = tournament.play(AIPlayer.Algorithm.RANDOM, AIPlayer.Algorithm.RANDOM);
+        }
+
+        long moves = 0;
+        long[] openings = new long[10];
+        for (Path path : new Path[] {first, second}) {
+            try (GameLogReader reader = new GameLogReader(path)) {
+                while (reader.next()) {
+                    moves += reader.getMoveCount();
+                    openings[reader.getMove(0)]++;
+                }
+            }
+        }
+
+        GameLogStats stats = new GameLogAnalyzer(2).analyze(first, second);
+        assertEquals(10000, stats.getGames());
+        assertEquals(5000, stats.getGames(AIPlayer.Algorithm.GREEDY));
+        assertEquals(15000, stats.getGames(AIPlayer.Algorithm.RANDOM));
+        assertEquals(greedy.getPlayerOneWins(), stats.getWins(AIPlayer.Algorithm.GREEDY));
+        assertEquals(greedy.getPlayerTwoWins(), stats.getLosses(AIPlayer.Algorithm.GREEDY));
+        assertEquals(greedy.getPlayerTwoWins() + random.getPlayerOneWins() + random.getPlayerTwoWins(),
+                stats.getWins(AIPlayer.Algorithm.RANDOM));
+        assertEquals(moves / 10000.0, stats.getAverageGameLength(), 1e-9);
+        for (int position = 1; position <= 9; position++) {
+            assertEquals(openings[position], stats.getOpeningGames(position));
+        }
+    }
+
+    @Test
+    public void testTruncatedLogs() throws IOException {
+        Path path = folder.newFile().toPath();
+        try (GameLogWriter writer = new GameLogWriter(path, 20, 20, 5)) {
+            for (int i = 0; i < 20; i++) {
+                writer.append(AIPlayer.Algorithm.MCTS, AIPlayer.Algorithm.RANDOM,
+                        new GameResult(null, null, new int[] {400 - i, 1 + i, 200}));
+            }
+        }
+        byte[] log = Files.readAllBytes(path);
+
+        // Every cut short log either fails to read with an IOException or, cut at a block boundary, ends early
+        Path truncated = folder.newFile().toPath();
+        for (int length = 0; length < log.length; length++) {
+            Files.write(truncated, Arrays.copyOf(log, length));
+            int games = 0;
+            try (GameLogReader reader = new GameLogReader(truncated)) {
+                while (reader.next()) {
+                    games++;
+                }
+                assertEquals(0, games);
+            } catch (IOException e) {
+                // Expected
+            }
+            try {
+                assertEquals(0, new GameLogAnalyzer(1).analyze(truncated).getGames());
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+
+        // Claim one more record than the block holds
+        ByteBuffer.wrap(log).putInt(headerBytes() + Integer.BYTES, 21);
+        Files.write(truncated, log);
+        try (GameLogReader reader = new GameLogReader(truncated)) {
+            while (reader.next()) {
+                assertEquals(3, reader.getMoveCount());
+            }
+            fail("Read past the end of the block");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("offset " + log.length));
+        }
+        try {
+            new GameLogAnalyzer(1).analyze(truncated);
+            fail("Decoded past the end of the block");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("offset " + log.length));
+        }
+    }
+
+    /**
+     * @return The size of a log's header, which the first block follows
+     */
+    private static int headerBytes() {
+        int bytes = 6 * Integer.BYTES;
+        for (AIPlayer.Algorithm algorithm : AIPlayer.Algorithm.values()) {
+            bytes += Short.BYTES + algorithm.name().length();
+        }
+        return bytes;
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new byte[] {1, 2, 3});
+        new GameLogReader(file.toPath());
+    }
+}
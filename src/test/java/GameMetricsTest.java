@@ -0,0 +1,67 @@
+import com.homework.Board;
+import com.homework.Player;
+import com.homework.impl.AIPlayer;
+import com.homework.impl.AIPlayer.Algorithm;
+import com.homework.metrics.GameMetrics;
+import com.homework.sim.GameResult;
+import com.homework.sim.GameRunner;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameMetricsTest {
+    @Test
+    public void testGamesAreCounted() {
+        GameMetrics metrics = GameMetrics.get();
+        long moves = metrics.getMovesApplied();
+        long games = metrics.getGamesCompleted();
+        long drawn = metrics.getGamesDrawn();
+        long minimaxDecisions = metrics.getDecisionLatencies(Algorithm.MINIMAX).getCount();
+        long nodes = metrics.getNodesSearched();
+        long probes = metrics.getTableProbes();
+
+        GameRunner runner = new GameRunner();
+        List<Player> players = Arrays.<Player>asList(
+                new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", Algorithm.MINIMAX),
+                new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", Algorithm.MINIMAX));
+        int played = 0;
+        int draws = 0;
+        for (int i = 0; i < 5; i++) {
+            GameResult result = runner.run(players, new Board(3));
+            played += result.getMoveCount();
+            if (result.isDraw()) draws++;
+        }
+
+        assertEquals(moves + played, metrics.getMovesApplied());
+        assertEquals(games + 5, metrics.getGamesCompleted());
+        assertEquals(drawn + draws, metrics.getGamesDrawn());
+        assertEquals(minimaxDecisions + played, metrics.getDecisionLatencies(Algorithm.MINIMAX).getCount());
+        assertTrue(metrics.getNodesSearched() > nodes);
+        assertTrue(metrics.getTableProbes() > probes);
+        assertTrue(metrics.getTableHits() <= metrics.getTableProbes());
+        assertTrue(metrics.dump().contains("MINIMAX"));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        GameMetrics.registerMBean();
+        // Registering twice is harmless
+        GameMetrics.registerMBean();
+        GameMetrics.get().recordGame(false, false);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+        assertTrue((Long) server.getAttribute(name, "GamesCompleted") > 0);
+        Object counts = server.getAttribute(name, "DecisionCounts");
+        assertTrue(counts instanceof TabularData);
+        assertTrue(((String) server.invoke(name, "dump", null, null)).contains("games"));
+    }
+}
@@ -0,0 +1,130 @@
+import com.homework.server.GameServer;
+import com.homework.server.LoadGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameServerTest {
+    private GameServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = new GameServer(0, 500, 1);
+        server.start();
+    }
+
+    @After
+    public void teardown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testProtocol() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            out.println("MOVE 1");
+            assertEquals("ERR No game in progress", in.readLine());
+            out.println("NEW 3 3 MINIMAX");
+            assertEquals("OK 3 3 MINIMAX", in.readLine());
+
+            // Minimax answers a corner opening in the centre
+            out.println("MOVE 1");
+            assertEquals("MOVE 5", in.readLine());
+            out.println("MOVE 5");
+            assertEquals("ERR Invalid move 5", in.readLine());
+            out.println("BOARD");
+            assertEquals("BOARD 3 3 X---O----", in.readLine());
+
+            // Commands may be pipelined
+            out.println("NEW 4 3 RANDOM\nBOARD\nFOO");
+            assertEquals("OK 4 3 RANDOM", in.readLine());
+            assertEquals("BOARD 4 4 ----------------", in.readLine());
+            assertEquals("ERR Unknown command FOO", in.readLine());
+            out.println("NEW 50");
+            assertTrue(in.readLine().startsWith("ERR"));
+
+            out.println("QUIT");
+            assertEquals("BYE", in.readLine());
+            assertEquals(null, in.readLine());
+        }
+    }
+
+    @Test
+    public void testSurvivesResetConnections() throws IOException, InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            // Closing with a zero linger time resets the connection rather than shutting it down cleanly, here once
+            // the server is waiting to read from it. Time out rather than hang if an earlier reset stopped the server.
+            Socket reset = new Socket("localhost", server.getPort());
+            reset.setSoLinger(true, 0);
+            reset.setSoTimeout(5000);
+            PrintWriter out = new PrintWriter(reset.getOutputStream(), true);
+            out.println("NEW 3 3 MINIMAX");
+            assertEquals("OK 3 3 MINIMAX", new BufferedReader(
+                    new InputStreamReader(reset.getInputStream(), StandardCharsets.US_ASCII)).readLine());
+            reset.close();
+        }
+
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(5000);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            out.println("NEW 3 3 MINIMAX");
+            assertEquals("OK 3 3 MINIMAX", in.readLine());
+            out.println("MOVE 1");
+            assertEquals("MOVE 5", in.readLine());
+        }
+        for (int i = 0; i < 100 && server.getSessionCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getSessionCount());
+    }
+
+    @Test
+    public void testLoad() throws IOException, InterruptedException {
+        LoadGenerator.Result result = new LoadGenerator(new InetSocketAddress("localhost", server.getPort()), 400, 5,
+                3, "GREEDY", 1).run();
+        assertEquals(0, result.getErrors());
+        assertEquals(2000, result.getGames());
+        assertEquals(2000, result.getWins() + result.getLosses() + result.getDraws());
+
+        // Sessions close once the server has seen every client quit
+        for (int i = 0; i < 100 && server.getSessionCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getSessionCount());
+    }
+
+    @Test
+    public void testRefusesSessionsWhenFull() throws IOException {
+        GameServer small = new GameServer(0, 1, 1);
+        small.start();
+        try (Socket first = new Socket("localhost", small.getPort());
+             Socket second = new Socket("localhost", small.getPort())) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(second.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals("ERR Server full", in.readLine());
+
+            // The session holding the only slot is unaffected
+            new PrintWriter(first.getOutputStream(), true).println("NEW");
+            assertEquals("OK 3 3 MINIMAX", new BufferedReader(
+                    new InputStreamReader(first.getInputStream(), StandardCharsets.US_ASCII)).readLine());
+        } finally {
+            small.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import com.homework.metrics.ConcurrentLatencyHistogram;
+import com.homework.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+
+        // 1 to 1000 microseconds
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertWithinPrecision(500_000, histogram.getPercentile(50));
+        assertWithinPrecision(990_000, histogram.getPercentile(99));
+        assertEquals(1_000_000, histogram.getPercentile(100));
+        assertWithinPrecision(1000, histogram.getPercentile(0));
+        assertEquals(500_500, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(49, histogram.getPercentile(50));
+        assertEquals(98, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(1_000_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(Long.MAX_VALUE);
+        }
+        fast.add(slow);
+        assertEquals(100, fast.getCount());
+        assertWithinPrecision(1_000_000, fast.getPercentile(90));
+        assertEquals(Long.MAX_VALUE, fast.getPercentile(91));
+
+        fast.reset();
+        assertEquals(0, fast.getCount());
+        assertEquals(0, fast.getPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecordingFromShortLivedThreads() throws InterruptedException {
+        final ConcurrentLatencyHistogram histogram = new ConcurrentLatencyHistogram();
+        // Far more threads than stripes, a few at a time, as a series of short lived pools would record
+        for (int round = 0; round < 50; round++) {
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 1; j <= 1000; j++) {
+                            histogram.record(j * 1000L);
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        LatencyHistogram snapshot = histogram.snapshot();
+        assertEquals(200_000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertWithinPrecision(500_000, snapshot.getPercentile(50));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 64);
+    }
+}
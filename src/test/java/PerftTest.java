@@ -0,0 +1,50 @@
+import com.homework.Board;
+import com.homework.perft.Perft;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PerftTest {
+    @Test
+    public void testFullGameTree() {
+        Perft.Result result = new Perft(2, true).count(new Board(3), 9);
+        assertEquals(255168, result.getGames());
+        assertEquals(131184, result.getPlayerOneWins());
+        assertEquals(77904, result.getPlayerTwoWins());
+        assertEquals(46080, result.getDraws());
+        assertEquals(0, result.getLeaves());
+        assertEquals(958, result.getDistinctTerminalPositions());
+        // Every prefix of every game, plus the empty board
+        assertEquals(549946, result.getNodes());
+    }
+
+    @Test
+    public void testShallowDepths() {
+        // No game ends before the fifth move, so the first plies just multiply out the free cells
+        long expected = 1;
+        for (int depth = 1; depth <= 4; depth++) {
+            expected *= 10 - depth;
+            Perft.Result result = new Perft(1, false).count(new Board(3), depth);
+            assertEquals(expected, result.getLeaves());
+            assertEquals(0, result.getGames());
+            assertEquals(-1, result.getDistinctTerminalPositions());
+        }
+        assertEquals(1, new Perft(1, false).count(new Board(3), 0).getLeaves());
+    }
+
+    @Test
+    public void testFromPositionMatchesAcrossThreads() {
+        Board b = new Board(4, 4, 3);
+        b.move(6, Board.PlayerId.PLAYER_ONE);
+        b.move(1, Board.PlayerId.PLAYER_TWO);
+        Perft.Result single = new Perft(1, false).count(b, 5);
+        Perft.Result parallel = new Perft(3, false).count(b, 5);
+        assertEquals(single.getNodes(), parallel.getNodes());
+        assertEquals(single.getLeaves(), parallel.getLeaves());
+        assertEquals(single.getPlayerOneWins(), parallel.getPlayerOneWins());
+        assertEquals(single.getPlayerTwoWins(), parallel.getPlayerTwoWins());
+        // The board is left untouched, and player one moves next
+        assertEquals(2, b.getMoveCount());
+        assertEquals(single.getNodes(), new Perft(1, false).count(new Board(b), 5).getNodes());
+    }
+}
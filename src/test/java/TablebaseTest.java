@@ -0,0 +1,116 @@
+import com.homework.Board;
+import com.homework.Player;
+import com.homework.impl.AIPlayer;
+import com.homework.tablebase.Tablebase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TablebaseTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSolves3x3() {
+        Tablebase tablebase = Tablebase.generate(3, 3, 3);
+        Board b = new Board(3);
+        assertEquals(Tablebase.Outcome.DRAW, tablebase.getOutcome(b, Board.PlayerId.PLAYER_ONE));
+
+        // X in a corner and O on an adjacent edge loses for O
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_TWO));
+        assertEquals(Tablebase.Outcome.WIN, tablebase.getOutcome(b, Board.PlayerId.PLAYER_ONE));
+
+        // O can win at 6 straight away, rather than blocking at 3
+        b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(4, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(9, Board.PlayerId.PLAYER_ONE));
+        assertEquals(Tablebase.Outcome.WIN, tablebase.getOutcome(b, Board.PlayerId.PLAYER_TWO));
+        assertEquals(6, tablebase.getBestMove(b, Board.PlayerId.PLAYER_TWO));
+    }
+
+    @Test
+    public void testCountsLegalPositions() throws IOException {
+        // 5,478 legal positions, less the 958 where the game is over, have an entry
+        File file = folder.newFile();
+        Tablebase.generate(3, 3, 3).write(file.toPath());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        assertEquals(20 + 19683, bytes.length);
+        int reachable = 0;
+        for (int i = 20; i < bytes.length; i++) {
+            if (bytes[i] != 0) reachable++;
+        }
+        assertEquals(4520, reachable);
+    }
+
+    @Test
+    public void testWriteAndMap() throws IOException {
+        Tablebase generated = Tablebase.generate(3, 3, 3);
+        File file = folder.newFile(Tablebase.fileName(3, 3, 3));
+        generated.write(file.toPath());
+        Tablebase mapped = Tablebase.open(file.toPath());
+        assertEquals(3, mapped.getRows());
+        assertEquals(3, mapped.getWinLength());
+
+        // Both agree on every position along a few random games
+        for (long seed = 0; seed < 20; seed++) {
+            AIPlayer p1 = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.RANDOM);
+            AIPlayer p2 = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.RANDOM);
+            p1.setSeed(seed);
+            p2.setSeed(seed + 100);
+            Board b = new Board(3);
+            Player current = p1;
+            while (!b.isBoardWon() && b.validMovesRemain()) {
+                assertEquals(generated.getBestMove(b, current.getPlayerId()),
+                        mapped.getBestMove(b, current.getPlayerId()));
+                assertEquals(generated.getOutcome(b, current.getPlayerId()),
+                        mapped.getOutcome(b, current.getPlayerId()));
+                assertTrue(b.move(current.getNextMove(b), current.getPlayerId()));
+                current = current == p1 ? p2 : p1;
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenRejectsOtherFiles() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new byte[64]);
+        Tablebase.open(file.toPath());
+    }
+
+    @Test
+    public void testPerfectNeverLoses() {
+        AIPlayer perfect = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.PERFECT);
+        AIPlayer random = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.RANDOM);
+        random.setSeed(5);
+        for (int i = 0; i < 200; i++) {
+            Board b = new Board(3);
+            Player current = random;
+            while (!b.isBoardWon() && b.validMovesRemain()) {
+                assertTrue(b.move(current.getNextMove(b), current.getPlayerId()));
+                if (b.isBoardWon()) assertFalse(current == random);
+                current = current == random ? perfect : random;
+            }
+        }
+        assertEquals(0, perfect.getNodesSearched());
+    }
+
+    @Test
+    public void testPerfectFallsBackToSearchOnLargeBoards() {
+        AIPlayer perfect = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.PERFECT, 2);
+        Board b = new Board(5);
+        assertTrue(b.isValidMove(perfect.getNextMove(b)));
+        assertTrue(perfect.getNodesSearched() > 0);
+    }
+}
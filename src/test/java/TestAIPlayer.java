@@ -1,9 +1,11 @@
 import com.homework.Board;
 import com.homework.Player;
 import com.homework.impl.AIPlayer;
+import com.homework.impl.TranspositionTable;
 import org.junit.Test;
 
 import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class TestAIPlayer {
@@ -97,6 +99,256 @@ public class TestAIPlayer {
         p.getNextMove(b);
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void testWonBoard_Minimax() {
+        Player p = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MINIMAX);
+        Board b = wonBoard(p);
+        p.getNextMove(b);
+    }
+
+    @Test
+    public void testMinimaxTakesWinAndBlocks() {
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MINIMAX);
+
+        // O can win at 6 and must otherwise block X at 3
+        Board b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(4, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(9, Board.PlayerId.PLAYER_ONE));
+        assertEquals(6, p.getNextMove(b));
+        assertTrue(p.getNodesSearched() > 0);
+
+        b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertEquals(3, p.getNextMove(b));
+
+        // The search must leave the board as it found it
+        assertEquals(3, b.getMoveCount());
+        assertTrue(b.isValidMove(3));
+    }
+
+    /**
+     * MINIMAX plays 3x3 perfectly, so it must never lose to a random player and two MINIMAX players always draw.
+     */
+    @Test
+    public void testMinimaxNeverLoses() {
+        Player minimax = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.MINIMAX);
+        Player random = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.RANDOM);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(playGame(minimax, random) != Board.PlayerId.PLAYER_TWO);
+        }
+
+        Player minimax2 = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.MINIMAX);
+        assertEquals(null, playGame(minimax, minimax2));
+    }
+
+    @Test
+    public void testParallelMinimaxPlaysPerfectly() {
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MINIMAX);
+        p.setSearchThreads(4);
+        Board b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertEquals(3, p.getNextMove(b));
+        assertEquals(3, b.getMoveCount());
+
+        AIPlayer first = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.MINIMAX);
+        first.setSearchThreads(3);
+        Player random = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.RANDOM);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(playGame(first, random) != Board.PlayerId.PLAYER_TWO);
+        }
+        assertEquals(null, playGame(first, p));
+    }
+
+    @Test
+    public void testParallelMinimaxOnLargerBoard() {
+        // X has two in a row on a 4x4 board, three to win, and finishes it at either end
+        Board b = new Board(4, 4, 3);
+        assertTrue(b.move(6, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(7, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(16, Board.PlayerId.PLAYER_TWO));
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MINIMAX, 5);
+        p.setSearchThreads(4);
+        int move = p.getNextMove(b);
+        assertTrue(move == 5 || move == 8);
+        assertTrue(p.getNodesSearched() > 0);
+        assertEquals(4, b.getMoveCount());
+
+        // And searches a quiet position to a time budget on every thread
+        p.setMoveTimeBudget(50);
+        assertTrue(new Board(6, 4).isValidMove(p.getNextMove(new Board(6, 4))));
+        assertTrue(p.getLastSearchDepth() >= 1);
+    }
+
+    @Test
+    public void testMinimaxDepthLimitOnLargerBoard() {
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MINIMAX, 3);
+        Board b = new Board(5);
+        assertTrue(b.isValidMove(p.getNextMove(b)));
+        assertEquals(0, b.getMoveCount());
+        assertTrue(p.getLastMoveTimeNanos() > 0);
+    }
+
+    @Test
+    public void testTranspositionTableReducesSearch() {
+        AIPlayer withTable = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MINIMAX, 6);
+        AIPlayer withoutTable = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MINIMAX, 6);
+        withoutTable.setTranspositionTable(null);
+
+        Board b = new Board(4);
+        assertTrue(b.isValidMove(withTable.getNextMove(b)));
+        assertTrue(b.isValidMove(withoutTable.getNextMove(b)));
+        assertTrue(withTable.getNodesSearched() < withoutTable.getNodesSearched());
+        assertTrue(withTable.getTranspositionTable().getHits() > 0);
+    }
+
+    @Test
+    public void testSmallTableStillPlaysPerfectly() {
+        for (TranspositionTable.ReplacementPolicy policy : TranspositionTable.ReplacementPolicy.values()) {
+            AIPlayer p1 = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.MINIMAX);
+            AIPlayer p2 = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.MINIMAX);
+
+            // A table with a handful of slots forces constant collisions and replacement
+            TranspositionTable table = new TranspositionTable(64, policy);
+            assertEquals(4, table.getCapacity());
+            p1.setTranspositionTable(table);
+            p2.setTranspositionTable(table);
+            assertEquals(null, playGame(p1, p2));
+        }
+    }
+
+    @Test
+    public void testMinimaxTimeBudget() {
+        // Searching 20 plies on an empty 7x7 board would take far longer than the budget allows
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MINIMAX, 20);
+        p.setMoveTimeBudget(50);
+        Board b = new Board(7, 4);
+        for (int i = 0; i < 3; i++) {
+            int move = p.getNextMove(b);
+            assertTrue(b.isValidMove(move));
+            assertTrue(p.getLastSearchDepth() >= 1);
+            assertTrue(p.getLastSearchDepth() < 20);
+            assertTrue(p.getLastMoveTimeNanos() < 1_000_000_000L);
+            assertTrue(b.move(move, Board.PlayerId.PLAYER_ONE));
+            assertTrue(b.move(b.getFreeCell(0), Board.PlayerId.PLAYER_TWO));
+        }
+        assertEquals(3, p.getMoveLatencies().getCount());
+        assertTrue(p.getMoveLatencies().getPercentile(99) >= p.getMoveLatencies().getPercentile(50));
+    }
+
+    @Test
+    public void testIterativeDeepeningStopsAtDecidedOutcome() {
+        // O wins at 6 straight away, so there is no point searching the full depth
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MINIMAX);
+        p.setMoveTimeBudget(60000);
+        Board b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(4, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(9, Board.PlayerId.PLAYER_ONE));
+        assertEquals(6, p.getNextMove(b));
+        assertEquals(1, p.getLastSearchDepth());
+    }
+
+    @Test
+    public void testMctsTakesWinAndBlocks() {
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MCTS);
+        p.setSeed(1);
+
+        // O can win at 6 and must otherwise block X at 3
+        Board b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(4, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(9, Board.PlayerId.PLAYER_ONE));
+        assertEquals(6, p.getNextMove(b));
+        assertEquals(AIPlayer.DEFAULT_PLAYOUTS, p.getLastPlayouts());
+        assertTrue(p.getPlayoutsPerSecond() > 0);
+
+        b = new Board(3);
+        assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
+        assertTrue(b.move(5, Board.PlayerId.PLAYER_TWO));
+        assertTrue(b.move(2, Board.PlayerId.PLAYER_ONE));
+        assertEquals(3, p.getNextMove(b));
+
+        // The search must leave the board as it found it
+        assertEquals(3, b.getMoveCount());
+        assertTrue(b.isValidMove(3));
+    }
+
+    @Test
+    public void testMctsBeatsRandom() {
+        AIPlayer mcts = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.MCTS);
+        AIPlayer random = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.RANDOM);
+        mcts.setSeed(7);
+        random.setSeed(8);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(playGame(mcts, random) != Board.PlayerId.PLAYER_TWO);
+        }
+    }
+
+    @Test
+    public void testParallelMctsIsReproducible() {
+        // With a playout budget rather than a clock, the seed alone decides the move, however the threads are scheduled
+        Board b = new Board(6, 7, 4);
+        assertTrue(b.move(39, Board.PlayerId.PLAYER_ONE));
+        int[] moves = new int[2];
+        for (int i = 0; i < moves.length; i++) {
+            AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.MCTS);
+            p.setSearchThreads(4);
+            p.setPlayouts(2001);
+            p.setSeed(3);
+            moves[i] = p.getNextMove(b);
+            assertEquals(2001, p.getLastPlayouts());
+        }
+        assertEquals(moves[0], moves[1]);
+        assertTrue(b.isValidMove(moves[0]));
+        assertEquals(1, b.getMoveCount());
+    }
+
+    @Test
+    public void testMctsTimeBudget() {
+        AIPlayer p = new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MCTS);
+        p.setPlayouts(Integer.MAX_VALUE);
+        p.setMoveTimeBudget(50);
+        Board b = new Board(15, 5);
+        assertTrue(b.isValidMove(p.getNextMove(b)));
+        assertTrue(p.getLastPlayouts() > 0);
+        assertTrue(p.getLastMoveTimeNanos() < 5_000_000_000L);
+        assertEquals(0, b.getMoveCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTableBudget() {
+        new TranspositionTable(8, TranspositionTable.ReplacementPolicy.ALWAYS_REPLACE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSearchDepth() {
+        new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI", AIPlayer.Algorithm.MINIMAX, 0);
+    }
+
+    // Play a game to completion and return the winner, or null for a draw
+    private Board.PlayerId playGame(Player first, Player second) {
+        Board b = new Board(3);
+        Player currentPlayer = first;
+        while (b.validMovesRemain() && !b.isBoardWon()) {
+            assertTrue(b.move(currentPlayer.getNextMove(b), currentPlayer.getPlayerId()));
+            if (b.isBoardWon()) return currentPlayer.getPlayerId();
+            currentPlayer = currentPlayer == first ? second : first;
+        }
+        return null;
+    }
+
     private Board fullBoard(Player p) {
         Board b = new Board(3);
         assertTrue(b.move(1, Board.PlayerId.PLAYER_ONE));
@@ -0,0 +1,127 @@
+import com.homework.Board;
+import com.homework.Player;
+import com.homework.impl.AIPlayer;
+import com.homework.sim.BoardPool;
+import com.homework.sim.GameResult;
+import com.homework.sim.GameRunner;
+import com.homework.sim.Tournament;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestGameRunner {
+    @Test
+    public void testRunManyGames() {
+        // Running games back to back in the same JVM must work, since the runner never exits
+        GameRunner runner = new GameRunner();
+        List<Player> players = Arrays.<Player>asList(
+                new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.RANDOM),
+                new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.GREEDY));
+        for (int i = 0; i < 200; i++) {
+            Board b = new Board(3);
+            GameResult result = runner.run(players, b);
+            assertFalse(result.isForfeit());
+            assertEquals(b.getMoveCount(), result.getMoveCount());
+            assertTrue(result.getMoveCount() >= 5);
+            if (result.isDraw()) {
+                assertFalse(b.validMovesRemain());
+            } else {
+                assertTrue(b.isBoardWon());
+                // The winner made the last move
+                assertEquals(result.getWinner(), b.getCellOwner(result.getMove(result.getMoveCount() - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void testForfeit() {
+        Player cheater = new Player(Board.PlayerId.PLAYER_ONE, "Cheater") {
+            @Override
+            public int getNextMove(Board b) {
+                return 0;
+            }
+        };
+        List<Player> players = Arrays.asList(cheater,
+                new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI", AIPlayer.Algorithm.RANDOM));
+        GameResult result = new GameRunner().run(players, new Board(3));
+        assertTrue(result.isForfeit());
+        assertEquals(Board.PlayerId.PLAYER_ONE, result.getForfeitedBy());
+        assertEquals(Board.PlayerId.PLAYER_TWO, result.getWinner());
+        assertEquals(0, result.getMoveCount());
+    }
+
+    @Test
+    public void testBoardPoolReusesBoards() {
+        BoardPool pool = new BoardPool(3);
+        GameRunner runner = new GameRunner();
+        List<Player> players = Arrays.<Player>asList(
+                new AIPlayer(Board.PlayerId.PLAYER_ONE, "AI_1", AIPlayer.Algorithm.RANDOM),
+                new AIPlayer(Board.PlayerId.PLAYER_TWO, "AI_2", AIPlayer.Algorithm.RANDOM));
+        Board first = pool.acquire();
+        pool.release(first);
+        for (int i = 0; i < 100; i++) {
+            Board b = pool.acquire();
+            assertSame(first, b);
+            assertEquals(0, b.getMoveCount());
+            assertTrue(runner.run(players, b).getMoveCount() >= 5);
+            pool.release(b);
+        }
+
+        // A second board is needed while the first is in use
+        Board second = pool.acquire();
+        assertNotSame(second, pool.acquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoardPoolRejectsOtherShapes() {
+        new BoardPool(3).release(new Board(4));
+    }
+
+    @Test
+    public void testTournament() {
+        List<Tournament.PairingResult> results = new Tournament(3, 5, 9).run();
+        int algorithms = AIPlayer.Algorithm.values().length;
+        assertEquals(algorithms * algorithms, results.size());
+        for (Tournament.PairingResult result : results) {
+            assertEquals(5, result.getGames());
+
+            // MINIMAX and PERFECT play perfectly so they never lose, and always draw against each other
+            if (result.getFirst() == AIPlayer.Algorithm.MINIMAX) assertEquals(0, result.getPlayerTwoWins());
+            if (result.getSecond() == AIPlayer.Algorithm.MINIMAX) assertEquals(0, result.getPlayerOneWins());
+            if (result.getFirst() == AIPlayer.Algorithm.PERFECT) assertEquals(0, result.getPlayerTwoWins());
+            if (result.getSecond() == AIPlayer.Algorithm.PERFECT) assertEquals(0, result.getPlayerOneWins());
+        }
+    }
+
+    @Test
+    public void testTournamentReproducibleAcrossThreadCounts() {
+        AIPlayer.Algorithm[] algorithms = {AIPlayer.Algorithm.RANDOM, AIPlayer.Algorithm.GREEDY,
+                AIPlayer.Algorithm.EVIL, AIPlayer.Algorithm.MINIMAX};
+        Tournament single = new Tournament(3, 2500, 9, 1, 42);
+        Tournament parallel = new Tournament(3, 2500, 9, 4, 42);
+        for (AIPlayer.Algorithm first : algorithms) {
+            for (AIPlayer.Algorithm second : algorithms) {
+                assertSameResults(single.play(first, second), parallel.play(first, second));
+            }
+        }
+
+        // MCTS runs a thousand playouts per move, so check it over fewer games
+        single = new Tournament(3, 40, 9, 1, 42);
+        parallel = new Tournament(3, 40, 9, 4, 42);
+        assertSameResults(single.play(AIPlayer.Algorithm.MCTS, AIPlayer.Algorithm.RANDOM),
+                parallel.play(AIPlayer.Algorithm.MCTS, AIPlayer.Algorithm.RANDOM));
+    }
+
+    private static void assertSameResults(Tournament.PairingResult expected, Tournament.PairingResult actual) {
+        assertEquals(expected.getPlayerOneWins(), actual.getPlayerOneWins());
+        assertEquals(expected.getPlayerTwoWins(), actual.getPlayerTwoWins());
+        assertEquals(expected.getDraws(), actual.getDraws());
+    }
+}